@@ -1,26 +1,25 @@
 package org.paumard.hol.record;
 
+import org.paumard.hol.record.filter.CachedClassFilter;
+
 import java.io.IOException;
 import java.io.ObjectInputFilter;
 import java.io.ObjectInputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+/**
+ * Reads files/range.bin, written by {@link WritingRange}, with a JVM-wide filter that only
+ * allows the records of the model package. The RangeLegacy written there is not a record, so the
+ * read fails with an InvalidClassException, and the filter counts one class rejected.
+ * A range.bin written before RangeLegacy had its own layout holds a RangeRecord: it is allowed.
+ */
 public class ReadingWithFilter {
 
     public static void main(String[] args) {
 
-        ObjectInputFilter onlyRecords =
-                filterInfo -> {
-                    System.out.println(filterInfo.serialClass());
-                    return filterInfo.serialClass().isRecord() ?
-                            ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
-                };
-
-        ObjectInputFilter classesFromModelPackage =
-                ObjectInputFilter.Config.createFilter("org.paumard.hol.serialization.model.*");
-
-        ObjectInputFilter recordsFromModel = ObjectInputFilter.merge(onlyRecords, classesFromModelPackage);
+        // the allow-list is compiled once, and the decision for each class is cached
+        var recordsFromModel = CachedClassFilter.allowing("org.paumard.hol.record.model.*").recordsOnly();
         ObjectInputFilter.Config.setSerialFilter(recordsFromModel);
 
         Path path = Path.of("files/range.bin");
@@ -29,14 +28,13 @@ public class ReadingWithFilter {
         try (var inputStream = Files.newInputStream(path);
              var objectInputStream = new ObjectInputStream(inputStream)) {
 
-            var allowRangeLegacy =
-                    ObjectInputFilter.Config.createFilter("org.paumard.hol.serialization.model.RangeLegacy");
-            objectInputStream.setObjectInputFilter(allowRangeLegacy);
             var range = objectInputStream.readObject();
             System.out.println("range = " + range);
 
         } catch (IOException | ClassNotFoundException e) {
             e.printStackTrace();
         }
+        // allowed=0, rejected=1 for range.bin
+        System.out.println("filter = " + recordsFromModel);
     }
 }
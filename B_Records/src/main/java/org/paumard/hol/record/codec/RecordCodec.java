@@ -0,0 +1,237 @@
+package org.paumard.hol.record.codec;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.RecordComponent;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Writes and reads the records of a given type in a compact binary form: the components
+ * one after the other, with no class descriptor and no field name. The layout is derived
+ * once per record type from its components, and cached in a {@link ClassValue}.
+ * <p>
+ * Only fixed size components are supported: the primitive types, and records made of
+ * such components, that are written inline. So every record of a type has the same size,
+ * and each component sits at a fixed offset. Values are written in the byte order of the buffer.
+ * <p>
+ * The components are read with the accessors of the record, and a record is created
+ * by its canonical constructor, so its validation rules are checked when it is read.
+ * Both are bound as method handles, so a public record in an exported package is needed.
+ */
+public final class RecordCodec<R extends Record> {
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodHandle ADD;
+
+    static {
+        try {
+            ADD = LOOKUP.findStatic(Integer.class, "sum", MethodType.methodType(int.class, int.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final ClassValue<RecordCodec<?>> CODECS = new ClassValue<>() {
+        @Override
+        protected RecordCodec<?> computeValue(Class<?> type) {
+            return new RecordCodec<>(type.asSubclass(Record.class));
+        }
+    };
+
+    private static final Map<Class<?>, Integer> SIZES = Map.of(
+            byte.class, Byte.BYTES, boolean.class, Byte.BYTES,
+            short.class, Short.BYTES, char.class, Character.BYTES,
+            int.class, Integer.BYTES, float.class, Float.BYTES,
+            long.class, Long.BYTES, double.class, Double.BYTES);
+
+    private final Class<R> type;
+    private final int size;
+    // (ByteBuffer, int)R, reads every component at its offset, then calls the canonical constructor
+    private final MethodHandle reader;
+    // (ByteBuffer, int, R)void, writes every component at its offset
+    private final MethodHandle writer;
+
+    private RecordCodec(Class<R> type) {
+        if (!type.isRecord()) {
+            throw new IllegalArgumentException(type.getName() + " is not a record");
+        }
+        this.type = type;
+        var components = type.getRecordComponents();
+        var componentTypes = new Class<?>[components.length];
+        var componentReaders = new MethodHandle[components.length];
+        var componentWriters = new MethodHandle[components.length];
+        int offset = 0;
+        try {
+            for (int index = 0; index < components.length; index++) {
+                var component = components[index];
+                int componentSize = sizeOf(component);
+                componentTypes[index] = component.getType();
+                componentReaders[index] = componentReader(component, offset);
+                componentWriters[index] = componentWriter(component, offset);
+                offset += componentSize;
+            }
+            var writer = MethodHandles.empty(MethodType.methodType(void.class, ByteBuffer.class, int.class, Record.class));
+            for (int index = components.length - 1; index >= 0; index--) {
+                writer = MethodHandles.foldArguments(writer, componentWriters[index]);
+            }
+            this.writer = writer;
+            var constructor = LOOKUP.findConstructor(type, MethodType.methodType(void.class, componentTypes));
+            var reader = constructor;
+            for (int index = components.length - 1; index >= 0; index--) {
+                reader = MethodHandles.collectArguments(reader, index, componentReaders[index]);
+            }
+            // every reader takes the same buffer and the same index
+            var reorder = new int[2 * components.length];
+            for (int index = 0; index < components.length; index++) {
+                reorder[2 * index + 1] = 1;
+            }
+            this.reader = MethodHandles.permuteArguments(reader,
+                            MethodType.methodType(type, ByteBuffer.class, int.class), reorder)
+                    .asType(MethodType.methodType(Record.class, ByteBuffer.class, int.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Cannot bind the components of " + type.getName(), e);
+        }
+        this.size = offset;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <R extends Record> RecordCodec<R> of(Class<R> type) {
+        return (RecordCodec<R>) CODECS.get(type);
+    }
+
+    private static int sizeOf(RecordComponent component) {
+        var componentType = component.getType();
+        if (componentType.isRecord()) {
+            return of(componentType.asSubclass(Record.class)).size();
+        }
+        var size = SIZES.get(componentType);
+        if (size == null) {
+            throw new IllegalArgumentException(
+                    "Component " + component.getName() + " of type " + componentType.getName() + " has no fixed size");
+        }
+        return size;
+    }
+
+    // (ByteBuffer, int)T, reads the component at index + offset
+    private static MethodHandle componentReader(RecordComponent component, int offset)
+            throws NoSuchMethodException, IllegalAccessException {
+        var componentType = component.getType();
+        MethodHandle get;
+        if (componentType.isRecord()) {
+            get = of(componentType.asSubclass(Record.class)).reader.asType(
+                    MethodType.methodType(componentType, ByteBuffer.class, int.class));
+        } else if (componentType == boolean.class) {
+            get = LOOKUP.findStatic(RecordCodec.class, "getBoolean",
+                    MethodType.methodType(boolean.class, ByteBuffer.class, int.class));
+        } else {
+            get = LOOKUP.findVirtual(ByteBuffer.class, getterName(componentType),
+                    MethodType.methodType(componentType, int.class));
+        }
+        return MethodHandles.filterArguments(get, 1, MethodHandles.insertArguments(ADD, 1, offset));
+    }
+
+    // (ByteBuffer, int, R)void, writes the component at index + offset
+    private static MethodHandle componentWriter(RecordComponent component, int offset)
+            throws IllegalAccessException, NoSuchMethodException {
+        var componentType = component.getType();
+        MethodHandle put;
+        if (componentType.isRecord()) {
+            put = LOOKUP.findVirtual(RecordCodec.class, "writeComponents",
+                            MethodType.methodType(void.class, ByteBuffer.class, int.class, Record.class))
+                    .bindTo(of(componentType.asSubclass(Record.class)))
+                    .asType(MethodType.methodType(void.class, ByteBuffer.class, int.class, componentType));
+        } else if (componentType == boolean.class) {
+            put = LOOKUP.findStatic(RecordCodec.class, "putBoolean",
+                    MethodType.methodType(void.class, ByteBuffer.class, int.class, boolean.class));
+        } else {
+            put = LOOKUP.findVirtual(ByteBuffer.class, putterName(componentType),
+                            MethodType.methodType(ByteBuffer.class, int.class, componentType))
+                    .asType(MethodType.methodType(void.class, ByteBuffer.class, int.class, componentType));
+        }
+        var accessor = LOOKUP.unreflect(component.getAccessor());
+        var write = MethodHandles.filterArguments(put, 1, MethodHandles.insertArguments(ADD, 1, offset));
+        return MethodHandles.filterArguments(write, 2, accessor)
+                .asType(MethodType.methodType(void.class, ByteBuffer.class, int.class, Record.class));
+    }
+
+    private static String getterName(Class<?> componentType) {
+        return componentType == byte.class ? "get" : "get" + capitalize(componentType.getName());
+    }
+
+    private static String putterName(Class<?> componentType) {
+        return componentType == byte.class ? "put" : "put" + capitalize(componentType.getName());
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static boolean getBoolean(ByteBuffer buffer, int index) {
+        return buffer.get(index) != 0;
+    }
+
+    private static void putBoolean(ByteBuffer buffer, int index, boolean value) {
+        buffer.put(index, value ? (byte) 1 : (byte) 0);
+    }
+
+    public Class<R> type() {
+        return type;
+    }
+
+    // the number of bytes of every record of this type
+    public int size() {
+        return size;
+    }
+
+    // writes the record at the position of the buffer, and moves the position after it
+    public void write(R record, ByteBuffer buffer) {
+        if (buffer.remaining() < size) {
+            throw new BufferOverflowException();
+        }
+        write(record, buffer, buffer.position());
+        buffer.position(buffer.position() + size);
+    }
+
+    // writes the record at the given index, the position of the buffer is not changed
+    public void write(R record, ByteBuffer buffer, int index) {
+        writeComponents(buffer, index, type.cast(record));
+    }
+
+    private void writeComponents(ByteBuffer buffer, int index, Record record) {
+        try {
+            writer.invokeExact(buffer, index, record);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // reads a record at the position of the buffer, and moves the position after it
+    public R read(ByteBuffer buffer) {
+        var record = read(buffer, buffer.position());
+        buffer.position(buffer.position() + size);
+        return record;
+    }
+
+    // reads a record at the given index, the position of the buffer is not changed
+    public R read(ByteBuffer buffer, int index) {
+        try {
+            return type.cast((Record) reader.invokeExact(buffer, index));
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RecordCodec[" + type.getName() + ", size=" + size +
+               ", components=" + Arrays.toString(type.getRecordComponents()) + "]";
+    }
+}
@@ -0,0 +1,172 @@
+package org.paumard.hol.record.file;
+
+import org.paumard.hol.record.codec.RecordCodec;
+import org.paumard.hol.record.model.RangeRecord;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * A file of ranges, with a fixed stride. A 16 bytes header: the magic number, the version
+ * of the format and the number of ranges, then each range as its begin and its end.
+ * Everything is little endian, and the ranges are written by the {@link RecordCodec} of
+ * {@link RangeRecord}, so a range sits at {@code HEADER_SIZE + 8 * index}.
+ * <p>
+ * The file is read through a mapped {@link MemorySegment}: {@link #begin(long)},
+ * {@link #end(long)} and {@link #forEach(RangeConsumer)} read the ints in place,
+ * and a {@link RangeRecord} is only created by {@link #get(long)} and {@link #stream()}.
+ * The mapping is shared, so the file can be scanned by several threads, until it is closed.
+ */
+public final class RangeFile implements AutoCloseable {
+
+    public static final int MAGIC = 0x52414E47;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+
+    private static final RecordCodec<RangeRecord> CODEC = RecordCodec.of(RangeRecord.class);
+    private static final int STRIDE = CODEC.size();
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    @FunctionalInterface
+    public interface RangeConsumer {
+        void accept(int begin, int end);
+    }
+
+    private final Arena arena;
+    private final MemorySegment ranges;
+    private final long size;
+
+    private RangeFile(Arena arena, MemorySegment file) throws IOException {
+        this.arena = arena;
+        if (file.byteSize() < HEADER_SIZE || file.get(INT, 0L) != MAGIC) {
+            throw new IOException("Not a range file");
+        }
+        short version = file.get(SHORT, 4L);
+        if (version != VERSION) {
+            throw new IOException("Unsupported range file version: " + version);
+        }
+        this.size = file.get(LONG, 8L);
+        // divided rather than multiplied: a corrupt count could overflow size * STRIDE
+        if (size < 0L || size > (file.byteSize() - HEADER_SIZE) / STRIDE) {
+            throw new IOException("Truncated range file: " + size + " ranges announced, " +
+                                  (file.byteSize() - HEADER_SIZE) / STRIDE + " found");
+        }
+        this.ranges = file.asSlice(HEADER_SIZE, size * STRIDE);
+    }
+
+    public static RangeFile open(Path path) throws IOException {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new RangeFile(arena, channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size(), arena));
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public static Writer writer(Path path) throws IOException {
+        return new Writer(path);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public int begin(long index) {
+        return ranges.getAtIndex(INT, 2L * index);
+    }
+
+    public int end(long index) {
+        return ranges.getAtIndex(INT, 2L * index + 1L);
+    }
+
+    public RangeRecord get(long index) {
+        return new RangeRecord(begin(index), end(index));
+    }
+
+    public void forEach(RangeConsumer consumer) {
+        for (long offset = 0L; offset < ranges.byteSize(); offset += STRIDE) {
+            consumer.accept(ranges.get(INT, offset), ranges.get(INT, offset + Integer.BYTES));
+        }
+    }
+
+    public Stream<RangeRecord> stream() {
+        return LongStream.range(0L, size).mapToObj(this::get);
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Writes the ranges in a large direct buffer, that is written to the file each time it is full.
+     * The number of ranges is written in the header when the writer is closed.
+     */
+    public static final class Writer implements AutoCloseable {
+
+        static final int BUFFER_SIZE = 1 << 20;
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        private long size;
+
+        private Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putLong(0L);
+        }
+
+        public Writer append(RangeRecord range) throws IOException {
+            if (buffer.remaining() < STRIDE) {
+                drain();
+            }
+            CODEC.write(range, buffer);
+            size++;
+            return this;
+        }
+
+        public Writer append(int begin, int end) throws IOException {
+            if (buffer.remaining() < STRIDE) {
+                drain();
+            }
+            buffer.putInt(begin).putInt(end);
+            size++;
+            return this;
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        public long size() {
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (channel) {
+                drain();
+                buffer.putLong(size).flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, 8L + buffer.position());
+                }
+            }
+        }
+    }
+}
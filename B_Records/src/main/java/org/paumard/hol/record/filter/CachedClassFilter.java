@@ -0,0 +1,122 @@
+package org.paumard.hol.record.filter;
+
+import java.io.ObjectInputFilter;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A deserialization filter on the classes read from a stream, with an allow-list in the
+ * syntax of {@link ObjectInputFilter.Config#createFilter(String)}, compiled once.
+ * The decision for a class is computed the first time the class is seen, and cached in
+ * a {@link ClassValue}, so checking a class again is a single lookup.
+ * <p>
+ * A class is allowed if the allow-list allows it and, for a records only filter, if it is a record.
+ * Any other class is rejected. The component type of an array is checked instead of the array.
+ * Primitive types, and the callbacks that only check the limits of the stream, are left undecided.
+ * The rejections are counted, in total and per class.
+ */
+public final class CachedClassFilter implements ObjectInputFilter {
+
+    private final String allowList;
+    private final boolean recordsOnly;
+    private final ObjectInputFilter allowListFilter;
+    private final ClassValue<Status> decisions = new ClassValue<>() {
+        @Override
+        protected Status computeValue(Class<?> type) {
+            return decide(type);
+        }
+    };
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final Map<Class<?>, LongAdder> rejectedClasses = new ConcurrentHashMap<>();
+
+    private CachedClassFilter(String allowList, boolean recordsOnly) {
+        this.allowList = allowList;
+        this.recordsOnly = recordsOnly;
+        this.allowListFilter = ObjectInputFilter.Config.createFilter(allowList);
+    }
+
+    public static CachedClassFilter allowing(String allowList) {
+        return new CachedClassFilter(allowList, false);
+    }
+
+    // a new filter, with the same allow-list, that also rejects the classes that are not records
+    public CachedClassFilter recordsOnly() {
+        return new CachedClassFilter(allowList, true);
+    }
+
+    private Status decide(Class<?> type) {
+        if (recordsOnly && !type.isRecord()) {
+            return Status.REJECTED;
+        }
+        return allowListFilter.checkInput(new ClassInfo(type)) == Status.ALLOWED ? Status.ALLOWED : Status.REJECTED;
+    }
+
+    @Override
+    public Status checkInput(FilterInfo filterInfo) {
+        var type = filterInfo.serialClass();
+        if (type == null) {
+            return Status.UNDECIDED;
+        }
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        if (type.isPrimitive()) {
+            return Status.UNDECIDED;
+        }
+        var status = decisions.get(type);
+        if (status == Status.ALLOWED) {
+            allowed.increment();
+        } else {
+            rejected.increment();
+            rejectedClasses.computeIfAbsent(type, _ -> new LongAdder()).increment();
+        }
+        return status;
+    }
+
+    public long allowed() {
+        return allowed.sum();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    public Map<Class<?>, Long> rejectedClasses() {
+        var counts = new HashMap<Class<?>, Long>();
+        rejectedClasses.forEach((type, count) -> counts.put(type, count.sum()));
+        return Map.copyOf(counts);
+    }
+
+    @Override
+    public String toString() {
+        return "CachedClassFilter[" + allowList + (recordsOnly ? ", records only" : "") +
+               ", allowed=" + allowed() + ", rejected=" + rejected() + "]";
+    }
+
+    // what the allow-list filter needs to decide on a class alone
+    private record ClassInfo(Class<?> serialClass) implements FilterInfo {
+
+        @Override
+        public long arrayLength() {
+            return -1L;
+        }
+
+        @Override
+        public long depth() {
+            return 1L;
+        }
+
+        @Override
+        public long references() {
+            return 0L;
+        }
+
+        @Override
+        public long streamBytes() {
+            return 0L;
+        }
+    }
+}
@@ -1,13 +1,36 @@
 package org.paumard.hol.record.model;
 
-import java.io.ObjectStreamException;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serial;
 import java.io.Serializable;
 
+/**
+ * A range serialized with a versioned layout, read straight into a RangeLegacy.
+ * Version 1 is the layout of the first RangeLegacy: its two fields, begin and end, and no version.
+ * Version 2 writes its version, begin, and the length of the range instead of its end.
+ * The serialVersionUID is the one computed for the first RangeLegacy, so that its streams still decode.
+ */
 public class RangeLegacy implements Serializable {
 
-    private final int begin;
-    private final int end;
+    @Serial
+    private static final long serialVersionUID = 5193670524287226216L;
+
+    static final int VERSION = 2;
+
+    @Serial
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("version", int.class),
+            new ObjectStreamField("begin", int.class),
+            new ObjectStreamField("length", long.class)
+    };
+
+    // not final, so that readObject() can set them
+    private int begin;
+    private int end;
 
     public RangeLegacy(int begin, int end) {
 //        if (begin > end) {
@@ -26,8 +49,31 @@ public class RangeLegacy implements Serializable {
     }
 
     @Serial
-    private Object writeReplace() throws ObjectStreamException {
-        return new RangeRecord(this.begin, this.end);
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        var fields = out.putFields();
+        fields.put("version", VERSION);
+        fields.put("begin", begin);
+        fields.put("length", (long) end - begin);
+        out.writeFields();
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        var fields = in.readFields();
+        // a version 1 stream has no version field
+        int version = fields.get("version", 1);
+        begin = fields.get("begin", 0);
+        end = switch (version) {
+            case 1 -> fields.get("end", 0);
+            case 2 -> {
+                long last = begin + fields.get("length", 0L);
+                if ((int) last != last) {
+                    throw new InvalidObjectException("Range end out of bounds: " + last);
+                }
+                yield (int) last;
+            }
+            default -> throw new InvalidObjectException("Unsupported RangeLegacy version: " + version);
+        };
     }
 
     @Override
@@ -1,9 +1,8 @@
 package org.paumard.hol.record.model;
 
-import java.io.ObjectStreamException;
-import java.io.Serial;
 import java.io.Serializable;
 
+// read back as a RangeRecord: the range.bin files written before RangeLegacy had its own layout hold one
 public record RangeRecord(int begin, int end) implements Serializable {
 
     public RangeRecord {
@@ -11,9 +10,4 @@ public record RangeRecord(int begin, int end) implements Serializable {
 //            throw new IllegalArgumentException("Begin should be lesser than end");
 //        }
     }
-
-    @Serial
-    private Object readResolve() throws ObjectStreamException {
-        return new RangeLegacy(this.begin, this.end);
-    }
 }
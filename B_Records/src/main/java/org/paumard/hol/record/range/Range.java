@@ -0,0 +1,121 @@
+package org.paumard.hol.record.range;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The integers from begin, included, to end, excluded. The range of the B_LessSimpleRecord
+ * lab, with a primitive iterator, and a spliterator that splits in two halves, so that
+ * a parallel {@link #intStream()} gets balanced tasks and never boxes.
+ */
+public record Range(int begin, int end) implements Iterable<Integer> {
+
+    public Range {
+        if (begin > end) {
+            throw new IllegalArgumentException("End must be greater than begin");
+        }
+    }
+
+    public Range(int end) {
+        this(0, end);
+    }
+
+    // the for-each loop still boxes, call nextInt() or forEachRemaining() to avoid it
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int index = begin;
+
+            @Override
+            public boolean hasNext() {
+                return index < end;
+            }
+
+            @Override
+            public int nextInt() {
+                if (index >= end) {
+                    throw new NoSuchElementException();
+                }
+                return index++;
+            }
+
+            @Override
+            public void forEachRemaining(IntConsumer action) {
+                int last = end;
+                for (int i = index; i < last; i++) {
+                    action.accept(i);
+                }
+                index = last;
+            }
+        };
+    }
+
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new RangeSpliterator(begin, end);
+    }
+
+    public IntStream intStream() {
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    private static final class RangeSpliterator implements Spliterator.OfInt {
+        private int index;
+        private final int end;
+
+        private RangeSpliterator(int index, int end) {
+            this.index = index;
+            this.end = end;
+        }
+
+        // the middle is computed on longs, so that a full int range does not overflow
+        @Override
+        public OfInt trySplit() {
+            int middle = (int) ((index + (long) end) >> 1);
+            if (middle <= index) {
+                return null;
+            }
+            var prefix = new RangeSpliterator(index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (index >= end) {
+                return false;
+            }
+            action.accept(index++);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            int last = end;
+            for (int i = index; i < last; i++) {
+                action.accept(i);
+            }
+            index = last;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | DISTINCT | SORTED | SIZED | SUBSIZED | IMMUTABLE | NONNULL;
+        }
+
+        @Override
+        public Comparator<? super Integer> getComparator() {
+            return null;
+        }
+    }
+}
@@ -1,49 +1,19 @@
 package org.paumard.solutions.hol.record;
 
 import org.junit.jupiter.api.Test;
+import org.paumard.hol.record.range.Range;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 
 public class B_LessSimpleRecord {
 
-    /**
-     * The content of this class has just been added to make the code
-     * compile. All this content should be removed when you make this class a record.
-     */
-    record Range(int begin, int end) implements Iterable<Integer> {
-
-        public Range {
-            if (begin > end) {
-                throw new IllegalArgumentException("End must be greater than begin");
-            }
-        }
-
-        public Range(int end) {
-            this(0, end);
-        }
-
-        @Override
-        public Iterator<Integer> iterator() {
-            return new Iterator<>() {
-                private int index = begin;
-
-                @Override
-                public boolean hasNext() {
-                    return index < end;
-                }
-
-                @Override
-                public Integer next() {
-                    return index++;
-                }
-            };
-        }
-    }
+    // the answer of the five exercises is org.paumard.hol.record.range.Range, in src/main,
+    // so that its spliterator is compiled and tested with the rest of the lab
 
     /**
      * Make the Range class a Record. Remove the constructors, the begin() and the end()
@@ -129,4 +99,35 @@ public class B_LessSimpleRecord {
     // <editor-fold defaultstate="collapsed">
     // You can implement this iterator with an anonymous class.
     // </editor-fold>
+
+
+    /**
+     * A parallel stream splits its source with the spliterator of the range. The default
+     * one, from <code>Iterable</code>, walks the boxing iterator and cannot split evenly.
+     * Add a <code>spliterator()</code> method that returns a <code>Spliterator.OfInt</code>,
+     * splitting the range in two halves, and an <code>intStream()</code> method built on it.
+     * </p>
+     * You can then uncomment the following code to make the test pass.
+     */
+    @Test
+    public void b_record05() {
+
+        Range range = new Range(-3, 7);
+        Spliterator.OfInt right = range.spliterator();
+        Spliterator.OfInt left = right.trySplit();
+
+        assertThat(range.intStream().sum()).isEqualTo(15);
+        assertThat(left.estimateSize()).isEqualTo(5L);
+        assertThat(right.estimateSize()).isEqualTo(5L);
+        assertThat(new Range(Integer.MIN_VALUE, Integer.MAX_VALUE).spliterator().estimateSize())
+                .isEqualTo(0xFFFF_FFFFL);
+        assertThat(range.intStream().parallel().boxed().toList())
+                .containsExactly(-3, -2, -1, 0, 1, 2, 3, 4, 5, 6);
+    }
+    // Hint:
+    // <editor-fold defaultstate="collapsed">
+    // Split at the middle of the remaining range, computed on longs:
+    // begin + end overflows for a range that covers all the ints.
+    // Use StreamSupport.intStream() to build the IntStream.
+    // </editor-fold>
 }
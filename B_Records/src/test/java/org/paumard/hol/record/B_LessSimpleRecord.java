@@ -120,4 +120,37 @@ public class B_LessSimpleRecord {
     // <editor-fold defaultstate="collapsed">
     // You can implement this iterator with an anonymous class.
     // </editor-fold>
+
+
+    /**
+     * A parallel stream splits its source with the spliterator of the range. The default
+     * one, from <code>Iterable</code>, walks the boxing iterator and cannot split evenly.
+     * Add a <code>spliterator()</code> method that returns a <code>Spliterator.OfInt</code>,
+     * splitting the range in two halves, and an <code>intStream()</code> method built on it.
+     * </p>
+     * You can then uncomment the following code to make the test pass.
+     */
+    @Test
+    @Disabled
+    public void b_record05() {
+
+        Range range = new Range(-3, 7);
+        // TODO: uncomment the following lines
+//        Spliterator.OfInt right = range.spliterator();
+//        Spliterator.OfInt left = right.trySplit();
+//
+//        assertThat(range.intStream().sum()).isEqualTo(15);
+//        assertThat(left.estimateSize()).isEqualTo(5L);
+//        assertThat(right.estimateSize()).isEqualTo(5L);
+//        assertThat(new Range(Integer.MIN_VALUE, Integer.MAX_VALUE).spliterator().estimateSize())
+//                .isEqualTo(0xFFFF_FFFFL);
+//        assertThat(range.intStream().parallel().boxed().toList())
+//                .containsExactly(-3, -2, -1, 0, 1, 2, 3, 4, 5, 6);
+    }
+    // Hint:
+    // <editor-fold defaultstate="collapsed">
+    // Split at the middle of the remaining range, computed on longs:
+    // begin + end overflows for a range that covers all the ints.
+    // Use StreamSupport.intStream() to build the IntStream.
+    // </editor-fold>
 }
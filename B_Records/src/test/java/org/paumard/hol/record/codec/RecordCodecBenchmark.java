@@ -0,0 +1,104 @@
+package org.paumard.hol.record.codec;
+
+import org.paumard.hol.record.model.RangeRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compares the record codec with Java serialization, on arrays of {@link RangeRecord}:
+ * the time to write and read a record, and the bytes written per record.
+ * Run with the number of records, and the number of rounds, the first half being warm up.
+ */
+public class RecordCodecBenchmark {
+
+    private record Result(String name, double writeNanos, double readNanos, double bytesPerRecord) {
+
+        void print() {
+            System.out.printf("%-24s write %8.1f ns/record   read %8.1f ns/record   %6.1f bytes/record%n",
+                    name, writeNanos, readNanos, bytesPerRecord);
+        }
+    }
+
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        var ranges = new RangeRecord[count];
+        for (int index = 0; index < count; index++) {
+            ranges[index] = new RangeRecord(index, index + 10);
+        }
+
+        Result serialization = null;
+        Result codec = null;
+        for (int round = 0; round < rounds; round++) {
+            serialization = serialization(ranges);
+            codec = codec(ranges);
+        }
+        System.out.println(count + " records, " + rounds + " rounds, last round:");
+        serialization.print();
+        codec.print();
+        System.out.println("Single record: " + singleRecordSerialization(ranges[0]) + " bytes with serialization, " +
+                           RecordCodec.of(RangeRecord.class).size() + " bytes with the codec");
+        System.out.println("(" + blackhole + ")");
+    }
+
+    private static Result serialization(RangeRecord[] ranges) {
+        try {
+            var bytes = new ByteArrayOutputStream(64 * ranges.length);
+            long start = System.nanoTime();
+            try (var output = new ObjectOutputStream(bytes)) {
+                for (var range : ranges) {
+                    output.writeObject(range);
+                }
+            }
+            long written = System.nanoTime();
+            try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                for (int index = 0; index < ranges.length; index++) {
+                    blackhole += input.readObject().hashCode();
+                }
+            }
+            long read = System.nanoTime();
+            return new Result("ObjectOutputStream", (written - start) / (double) ranges.length,
+                    (read - written) / (double) ranges.length, bytes.size() / (double) ranges.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Result codec(RangeRecord[] ranges) {
+        var codec = RecordCodec.of(RangeRecord.class);
+        var buffer = ByteBuffer.allocate(codec.size() * ranges.length);
+        long start = System.nanoTime();
+        for (var range : ranges) {
+            codec.write(range, buffer);
+        }
+        long written = System.nanoTime();
+        buffer.flip();
+        for (int index = 0; index < ranges.length; index++) {
+            blackhole += codec.read(buffer).end();
+        }
+        long read = System.nanoTime();
+        return new Result("RecordCodec", (written - start) / (double) ranges.length,
+                (read - written) / (double) ranges.length, buffer.limit() / (double) ranges.length);
+    }
+
+    private static int singleRecordSerialization(RangeRecord range) {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(range);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.size();
+    }
+}
@@ -0,0 +1,94 @@
+package org.paumard.hol.record.codec;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.hol.record.model.RangeRecord;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+public class RecordCodecTest {
+
+    public record Point(double x, double y) {
+    }
+
+    public record Primitives(byte b, boolean flag, short s, char c, int i, float f, long l, double d) {
+    }
+
+    public record Segment(Point from, Point to, int color) {
+    }
+
+    public record CheckedRange(int begin, int end) {
+        public CheckedRange {
+            if (begin > end) {
+                throw new IllegalArgumentException("Begin should be lesser than end");
+            }
+        }
+    }
+
+    public record Named(String name) {
+    }
+
+    @Test
+    public void writes_a_range_in_8_bytes() {
+        var codec = RecordCodec.of(RangeRecord.class);
+        var buffer = ByteBuffer.allocate(codec.size());
+
+        codec.write(new RangeRecord(10, 20), buffer);
+
+        assertThat(codec.size()).isEqualTo(8);
+        assertThat(buffer.position()).isEqualTo(8);
+        assertThat(buffer.getInt(0)).isEqualTo(10);
+        assertThat(buffer.getInt(4)).isEqualTo(20);
+        assertThat(codec.read(buffer.flip())).isEqualTo(new RangeRecord(10, 20));
+    }
+
+    @Test
+    public void reads_back_every_primitive_type() {
+        var codec = RecordCodec.of(Primitives.class);
+        var primitives = new Primitives((byte) -3, true, (short) 1_000, 'é', -42, 1.5f, Long.MAX_VALUE, Math.PI);
+        var buffer = ByteBuffer.allocate(codec.size());
+
+        codec.write(primitives, buffer);
+
+        assertThat(codec.size()).isEqualTo(1 + 1 + 2 + 2 + 4 + 4 + 8 + 8);
+        assertThat(codec.read(buffer.flip())).isEqualTo(primitives);
+    }
+
+    @Test
+    public void writes_nested_records_inline() {
+        var codec = RecordCodec.of(Segment.class);
+        var segment = new Segment(new Point(1.0, 2.0), new Point(3.0, 4.0), 0xFF00FF);
+        var buffer = ByteBuffer.allocate(3 * codec.size());
+
+        codec.write(segment, buffer, codec.size());
+
+        assertThat(codec.size()).isEqualTo(2 * 16 + 4);
+        assertThat(buffer.position()).isEqualTo(0);
+        assertThat(buffer.getDouble(codec.size() + 16)).isEqualTo(3.0);
+        assertThat(codec.read(buffer, codec.size())).isEqualTo(segment);
+    }
+
+    @Test
+    public void reading_calls_the_canonical_constructor() {
+        var codec = RecordCodec.of(CheckedRange.class);
+        var buffer = ByteBuffer.allocate(codec.size()).putInt(10).putInt(0).flip();
+
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> codec.read(buffer))
+                .withMessage("Begin should be lesser than end");
+    }
+
+    @Test
+    public void the_layout_is_computed_once_per_type() {
+        assertThat(RecordCodec.of(Point.class)).isSameAs(RecordCodec.of(Point.class));
+    }
+
+    @Test
+    public void rejects_components_without_a_fixed_size() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> RecordCodec.of(Named.class))
+                .withMessageContaining("name");
+    }
+}
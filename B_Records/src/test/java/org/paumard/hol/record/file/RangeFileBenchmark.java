@@ -0,0 +1,51 @@
+package org.paumard.hol.record.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a range file, then scans it in place and as records.
+ * Run with the number of ranges and the path of the file.
+ */
+public class RangeFileBenchmark {
+
+    private static long total;
+
+    public static void main(String[] args) throws IOException {
+        long count = args.length > 0 ? Long.parseLong(args[0]) : 10_000_000L;
+        var path = Path.of(args.length > 1 ? args[1] : "files/ranges.bin");
+
+        long start = System.nanoTime();
+        try (var writer = RangeFile.writer(path)) {
+            for (long index = 0L; index < count; index++) {
+                writer.append((int) index, (int) index + 10);
+            }
+        }
+        long written = System.nanoTime() - start;
+        long bytes = Files.size(path);
+        System.out.printf("Wrote %,d ranges, %,d bytes in %d ms, %.0f MB/s%n",
+                count, bytes, written / 1_000_000L, bytes / (written / 1e9) / 1e6);
+
+        try (var ranges = RangeFile.open(path)) {
+            for (int round = 0; round < 5; round++) {
+                scan("forEach", ranges, () -> ranges.forEach((begin, end) -> total += end - begin));
+                scan("begin / end", ranges, () -> {
+                    for (long index = 0L; index < ranges.size(); index++) {
+                        total += ranges.end(index) - ranges.begin(index);
+                    }
+                });
+                scan("stream of records", ranges, () ->
+                        total += ranges.stream().mapToLong(range -> range.end() - range.begin()).sum());
+            }
+        }
+        System.out.println("(" + total + ")");
+    }
+
+    private static void scan(String name, RangeFile ranges, Runnable scan) {
+        long start = System.nanoTime();
+        scan.run();
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %6.2f ns/range%n", name, elapsed / (double) ranges.size());
+    }
+}
@@ -0,0 +1,136 @@
+package org.paumard.hol.record.file;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.paumard.hol.record.model.RangeRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RangeFileTest {
+
+    private Path path;
+
+    @BeforeEach
+    public void createFile() throws IOException {
+        path = Files.createTempFile("ranges", ".bin");
+    }
+
+    @AfterEach
+    public void deleteFile() throws IOException {
+        Files.deleteIfExists(path);
+    }
+
+    @Test
+    public void reads_back_the_written_ranges() throws IOException {
+        try (var writer = RangeFile.writer(path)) {
+            writer.append(new RangeRecord(0, 10)).append(5, 15).append(new RangeRecord(-3, 3));
+        }
+
+        try (var ranges = RangeFile.open(path)) {
+            assertThat(ranges.size()).isEqualTo(3L);
+            assertThat(ranges.begin(1L)).isEqualTo(5);
+            assertThat(ranges.end(1L)).isEqualTo(15);
+            assertThat(ranges.get(2L)).isEqualTo(new RangeRecord(-3, 3));
+            assertThat(ranges.stream().toList())
+                    .containsExactly(new RangeRecord(0, 10), new RangeRecord(5, 15), new RangeRecord(-3, 3));
+        }
+        assertThat(Files.size(path)).isEqualTo(RangeFile.HEADER_SIZE + 3L * 8L);
+    }
+
+    @Test
+    public void writes_ranges_across_several_buffers() throws IOException {
+        int count = 3 * RangeFile.Writer.BUFFER_SIZE / 8 + 7;
+        try (var writer = RangeFile.writer(path)) {
+            for (int index = 0; index < count; index++) {
+                writer.append(index, 2 * index);
+            }
+        }
+
+        try (var ranges = RangeFile.open(path)) {
+            assertThat(ranges.size()).isEqualTo(count);
+            var mismatches = new ArrayList<Integer>();
+            int[] index = {0};
+            ranges.forEach((begin, end) -> {
+                if (begin != index[0] || end != 2 * index[0]) {
+                    mismatches.add(index[0]);
+                }
+                index[0]++;
+            });
+            assertThat(index[0]).isEqualTo(count);
+            assertThat(mismatches).isEmpty();
+        }
+    }
+
+    @Test
+    public void an_empty_file_has_no_range() throws IOException {
+        RangeFile.writer(path).close();
+
+        try (var ranges = RangeFile.open(path)) {
+            assertThat(ranges.size()).isZero();
+            assertThat(ranges.stream().count()).isZero();
+        }
+    }
+
+    @Test
+    public void rejects_a_file_that_is_not_a_range_file() throws IOException {
+        Files.write(path, new byte[32]);
+
+        assertThatThrownBy(() -> RangeFile.open(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Not a range file");
+    }
+
+    @Test
+    public void rejects_a_truncated_file() throws IOException {
+        try (var writer = RangeFile.writer(path)) {
+            writer.append(0, 10).append(5, 15);
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(RangeFile.HEADER_SIZE + 8L);
+        }
+
+        assertThatThrownBy(() -> RangeFile.open(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    public void rejects_a_count_that_overflows() throws IOException {
+        try (var writer = RangeFile.writer(path)) {
+            writer.append(0, 10).append(5, 15);
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // 2^61 + 1 ranges of 8 bytes wrap around to 8 bytes
+            var count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(0, (1L << 61) + 1L);
+            channel.write(count, 8L);
+        }
+
+        assertThatThrownBy(() -> RangeFile.open(path))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+    }
+
+    @Test
+    public void the_header_is_little_endian() throws IOException {
+        try (var writer = RangeFile.writer(path)) {
+            writer.append(1, 2);
+        }
+
+        var header = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(header.getInt(0)).isEqualTo(RangeFile.MAGIC);
+        assertThat((int) header.getShort(4)).isEqualTo((int) RangeFile.VERSION);
+        assertThat(header.getLong(8)).isEqualTo(1L);
+        assertThat(header.getInt(RangeFile.HEADER_SIZE + 4)).isEqualTo(2);
+    }
+}
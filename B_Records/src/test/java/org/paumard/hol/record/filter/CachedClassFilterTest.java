@@ -0,0 +1,127 @@
+package org.paumard.hol.record.filter;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.hol.record.model.RangeRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CachedClassFilterTest {
+
+    public record Span(int begin, int end) implements Serializable {
+    }
+
+    public static class Point implements Serializable {
+        private final int x;
+
+        public Point(int x) {
+            this.x = x;
+        }
+    }
+
+    public record PointProxy(int x) implements Serializable {
+        @Serial
+        private Object readResolve() {
+            return new Point(x);
+        }
+    }
+
+    private static byte[] serialize(Object object) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes, ObjectInputFilter filter) throws IOException, ClassNotFoundException {
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            input.setObjectInputFilter(filter);
+            return input.readObject();
+        }
+    }
+
+    @Test
+    public void allows_a_record_from_the_allow_list() throws IOException, ClassNotFoundException {
+        var filter = CachedClassFilter.allowing("org.paumard.hol.record.filter.*").recordsOnly();
+
+        var span = deserialize(serialize(new Span(0, 10)), filter);
+
+        assertThat(span).isEqualTo(new Span(0, 10));
+        assertThat(filter.allowed()).isEqualTo(1L);
+        assertThat(filter.rejected()).isZero();
+    }
+
+    @Test
+    public void checks_the_class_returned_by_read_resolve() throws IOException, ClassNotFoundException {
+        // the record in the stream is resolved to a class that is not a record
+        var bytes = serialize(new PointProxy(1));
+        var recordsOnly = CachedClassFilter.allowing("org.paumard.hol.record.filter.*").recordsOnly();
+        var fromModel = CachedClassFilter.allowing("org.paumard.hol.record.filter.*");
+
+        assertThatThrownBy(() -> deserialize(bytes, recordsOnly)).isInstanceOf(InvalidClassException.class);
+        assertThat(recordsOnly.rejectedClasses()).isEqualTo(Map.of(Point.class, 1L));
+        assertThat(deserialize(bytes, fromModel)).isInstanceOf(Point.class);
+        assertThat(fromModel.allowed()).isEqualTo(2L);
+    }
+
+    @Test
+    public void rejects_a_class_that_is_not_a_record() throws IOException {
+        var filter = CachedClassFilter.allowing("org.paumard.hol.record.**").recordsOnly();
+        var bytes = serialize(new Point(1));
+
+        assertThatThrownBy(() -> deserialize(bytes, filter)).isInstanceOf(InvalidClassException.class);
+        assertThat(filter.rejected()).isEqualTo(1L);
+        assertThat(filter.rejectedClasses()).isEqualTo(Map.of(Point.class, 1L));
+    }
+
+    @Test
+    public void rejects_a_record_outside_of_the_allow_list() throws IOException {
+        var filter = CachedClassFilter.allowing("java.lang.*").recordsOnly();
+        var bytes = serialize(new RangeRecord(0, 10));
+
+        assertThatThrownBy(() -> deserialize(bytes, filter)).isInstanceOf(InvalidClassException.class);
+        assertThat(filter.rejectedClasses()).isEqualTo(Map.of(RangeRecord.class, 1L));
+    }
+
+    @Test
+    public void checks_the_component_type_of_arrays() throws IOException, ClassNotFoundException {
+        var filter = CachedClassFilter.allowing("org.paumard.hol.record.filter.*").recordsOnly();
+        var spans = new Span[]{new Span(0, 1), new Span(2, 3)};
+
+        var read = deserialize(serialize(spans), filter);
+
+        assertThat(read).isInstanceOf(Span[].class);
+        assertThat(filter.allowed()).isEqualTo(3L);
+        assertThat(filter.rejected()).isZero();
+    }
+
+    @Test
+    public void primitive_arrays_are_left_undecided() throws IOException, ClassNotFoundException {
+        var filter = CachedClassFilter.allowing("org.paumard.hol.record.model.*");
+
+        var read = deserialize(serialize(new int[]{1, 2, 3}), filter);
+
+        assertThat(read).isInstanceOf(int[].class);
+        assertThat(filter.allowed()).isZero();
+        assertThat(filter.rejected()).isZero();
+    }
+
+    @Test
+    public void a_plain_allow_list_accepts_classes() throws IOException, ClassNotFoundException {
+        var filter = CachedClassFilter.allowing(Point.class.getName());
+
+        assertThat(deserialize(serialize(new Point(1)), filter)).isInstanceOf(Point.class);
+    }
+}
@@ -0,0 +1,78 @@
+package org.paumard.hol.record.filter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+
+/**
+ * Reads a stream of records with no filter, with a merge of a lambda and
+ * a pattern filter, evaluated on each callback, and with a {@link CachedClassFilter}.
+ * Run with the number of records, and the number of rounds.
+ */
+public class FilterBenchmark {
+
+    public record Span(int begin, int end) implements Serializable {
+    }
+
+    private static long blackhole;
+
+    public static void main(String[] args) {
+        int count = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        var bytes = serialize(count);
+
+        ObjectInputFilter onlyRecords = filterInfo -> filterInfo.serialClass() == null ? ObjectInputFilter.Status.UNDECIDED :
+                filterInfo.serialClass().isRecord() ? ObjectInputFilter.Status.ALLOWED : ObjectInputFilter.Status.REJECTED;
+        var merged = ObjectInputFilter.merge(onlyRecords,
+                ObjectInputFilter.Config.createFilter("org.paumard.hol.record.filter.*"));
+        var cached = CachedClassFilter.allowing("org.paumard.hol.record.filter.*").recordsOnly();
+
+        double none = 0, lambda = 0, precompiled = 0;
+        for (int round = 0; round < rounds; round++) {
+            none = read(bytes, count, null);
+            lambda = read(bytes, count, merged);
+            precompiled = read(bytes, count, cached);
+        }
+        System.out.println(count + " records, " + rounds + " rounds, last round:");
+        System.out.printf("%-24s %8.1f ns/record%n", "no filter", none);
+        System.out.printf("%-24s %8.1f ns/record%n", "lambda + pattern", lambda);
+        System.out.printf("%-24s %8.1f ns/record%n", "cached filter", precompiled);
+        System.out.println(cached + " (" + blackhole + ")");
+    }
+
+    private static byte[] serialize(int count) {
+        var bytes = new ByteArrayOutputStream(16 * count);
+        try (var output = new ObjectOutputStream(bytes)) {
+            for (int index = 0; index < count; index++) {
+                output.writeObject(new Span(index, index + 10));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // returns the time to read a record, in ns
+    private static double read(byte[] bytes, int count, ObjectInputFilter filter) {
+        long start = System.nanoTime();
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            if (filter != null) {
+                input.setObjectInputFilter(filter);
+            }
+            for (int index = 0; index < count; index++) {
+                blackhole += input.readObject().hashCode();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException(e);
+        }
+        return (System.nanoTime() - start) / (double) count;
+    }
+}
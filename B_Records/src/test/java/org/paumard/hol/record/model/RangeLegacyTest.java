@@ -0,0 +1,67 @@
+package org.paumard.hol.record.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RangeLegacyTest {
+
+    // new RangeLegacy(10, 0), as written by the first RangeLegacy: begin and end, no version
+    private static final String VERSION_1 =
+            "rO0ABXNyAChvcmcucGF1bWFyZC5ob2wucmVjb3JkLm1vZGVsLlJhbmdlTGVnYWN5SBOf0xiOkWgCAAJJAAViZWdpbkkAA2VuZHhwAAAACgAAAAA=";
+
+    private static byte[] serialize(Object object) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var output = new ObjectOutputStream(bytes)) {
+            output.writeObject(object);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (var input = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return input.readObject();
+        }
+    }
+
+    @Test
+    public void migrates_a_version_1_stream() throws IOException, ClassNotFoundException {
+        var range = (RangeLegacy) deserialize(Base64.getDecoder().decode(VERSION_1));
+
+        assertThat(range.begin()).isEqualTo(10);
+        assertThat(range.end()).isEqualTo(0);
+    }
+
+    @Test
+    public void reads_back_a_version_2_range() throws IOException, ClassNotFoundException {
+        var range = (RangeLegacy) deserialize(serialize(new RangeLegacy(Integer.MIN_VALUE, Integer.MAX_VALUE)));
+
+        assertThat(range.begin()).isEqualTo(Integer.MIN_VALUE);
+        assertThat(range.end()).isEqualTo(Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void rejects_an_unknown_version() throws IOException {
+        var bytes = serialize(new RangeLegacy(0, 10));
+        // the fields are written sorted by name: the version comes last, before the end of block marker
+        bytes[bytes.length - 2] = 3;
+
+        assertThatThrownBy(() -> deserialize(bytes))
+                .isInstanceOf(InvalidObjectException.class)
+                .hasMessageContaining("version: 3");
+    }
+
+    @Test
+    public void a_range_record_is_read_back_as_a_range_record() throws IOException, ClassNotFoundException {
+        assertThat(deserialize(serialize(new RangeRecord(10, 0)))).isEqualTo(new RangeRecord(10, 0));
+    }
+}
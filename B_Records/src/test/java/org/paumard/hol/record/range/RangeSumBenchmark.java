@@ -0,0 +1,64 @@
+package org.paumard.hol.record.range;
+
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.StreamSupport;
+
+/**
+ * Sums a huge {@link Range} with parallel streams, on pools of 1, 2, 4... threads:
+ * through the {@code IntStream} of the range, and through its boxed iterator, split
+ * the way the default {@code Iterable.spliterator()} does. The speedup is the time on one
+ * thread divided by the time on the pool, it can only grow up to the number of cores.
+ * Run with the end of the range, the number of rounds, and the largest pool, by default
+ * the number of cores.
+ */
+public class RangeSumBenchmark {
+
+    public static void main(String[] args) {
+        int end = args.length > 0 ? Integer.parseInt(args[0]) : 200_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        int processors = Runtime.getRuntime().availableProcessors();
+        int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) : processors;
+
+        var range = new Range(end);
+        long expected = (long) end * (end - 1) / 2;
+        System.out.println("sum of " + range + ", " + rounds + " rounds, best round, " + processors + " cores:");
+        System.out.printf("%-8s %14s %8s %14s %8s%n", "threads", "IntStream", "speedup", "boxed", "speedup");
+        double primitiveOnOne = 0, boxedOnOne = 0;
+        for (int threads = 1; ; threads = Math.min(2 * threads, maxThreads)) {
+            try (var pool = new ForkJoinPool(threads)) {
+                double primitive = Double.MAX_VALUE, boxed = Double.MAX_VALUE;
+                for (int round = 0; round < rounds; round++) {
+                    primitive = Math.min(primitive, time(pool, expected, () -> range.intStream().parallel().asLongStream().sum()));
+                    boxed = Math.min(boxed, time(pool, expected, () ->
+                            StreamSupport.stream(Spliterators.spliteratorUnknownSize(range.iterator(), 0), true)
+                                    .mapToLong(Integer::longValue).sum()));
+                }
+                if (threads == 1) {
+                    primitiveOnOne = primitive;
+                    boxedOnOne = boxed;
+                }
+                System.out.printf("%-8d %11.2f ms %7.2fx %11.2f ms %7.2fx%n",
+                        threads, primitive, primitiveOnOne / primitive, boxed, boxedOnOne / boxed);
+            }
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
+    }
+
+    private interface Sum {
+        long compute();
+    }
+
+    // returns the time of the sum, in ms
+    private static double time(ForkJoinPool pool, long expected, Sum sum) {
+        long start = System.nanoTime();
+        long result = pool.submit(sum::compute).join();
+        double elapsed = (System.nanoTime() - start) / 1_000_000d;
+        if (result != expected) {
+            throw new IllegalStateException("Wrong sum: " + result);
+        }
+        return elapsed;
+    }
+}
@@ -0,0 +1,62 @@
+package org.paumard.hol.record.range;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RangeTest {
+
+    @Test
+    public void the_spliterator_splits_in_two_halves() {
+        var right = new Range(-3, 7).spliterator();
+        var left = right.trySplit();
+
+        assertThat(left.estimateSize()).isEqualTo(5L);
+        assertThat(right.estimateSize()).isEqualTo(5L);
+        assertThat(left.trySplit().estimateSize()).isEqualTo(2L);
+    }
+
+    @Test
+    public void a_full_int_range_does_not_overflow() {
+        var spliterator = new Range(Integer.MIN_VALUE, Integer.MAX_VALUE).spliterator();
+
+        assertThat(spliterator.estimateSize()).isEqualTo(0xFFFF_FFFFL);
+        assertThat(spliterator.trySplit().estimateSize()).isEqualTo(0x7FFF_FFFFL);
+        assertThat(spliterator.estimateSize()).isEqualTo(0x8000_0000L);
+    }
+
+    @Test
+    public void a_parallel_stream_keeps_the_order() {
+        var range = new Range(-3, 7);
+
+        assertThat(range.intStream().sum()).isEqualTo(15);
+        assertThat(range.intStream().parallel().boxed().toList())
+                .containsExactly(-3, -2, -1, 0, 1, 2, 3, 4, 5, 6);
+        assertThat(new Range(100_000).intStream().parallel().asLongStream().sum()).isEqualTo(4_999_950_000L);
+    }
+
+    @Test
+    public void the_iterator_stops_at_the_end() {
+        var iterator = new Range(3).iterator();
+        var indexes = new ArrayList<Integer>();
+        indexes.add(iterator.nextInt());
+        iterator.forEachRemaining((int index) -> indexes.add(index));
+
+        assertThat(indexes).containsExactly(0, 1, 2);
+        assertThat(iterator.hasNext()).isFalse();
+        assertThatThrownBy(iterator::nextInt).isInstanceOf(NoSuchElementException.class);
+    }
+
+    @Test
+    public void an_empty_range_cannot_be_split() {
+        var spliterator = new Range(5, 5).spliterator();
+
+        assertThat(spliterator.trySplit()).isNull();
+        assertThat(spliterator.tryAdvance((int index) -> {
+        })).isFalse();
+    }
+}
@@ -0,0 +1,145 @@
+package org.paumard.flightmonitoring.db;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A set of tracked flights with one dirty bit each. Marking a flight dirty is an
+ * atomic OR on a bitset: it never blocks and never allocates. Draining clears the
+ * bits and hands out each dirty flight once, however many times it was marked: the
+ * marks of a flight that was already dirty are counted as coalesced.
+ * The dirty flights are collected under the lock, then handed out after releasing it,
+ * so tracking a new flight does not wait for a slow consumer. Untracking does wait for it:
+ * a flight is never handed out once it is untracked.
+ */
+public class DirtyFlights {
+
+    private static final VarHandle BITS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final ConcurrentHashMap<Flight, Integer> slots = new ConcurrentHashMap<>();
+    // taken before this: one drain at a time, and untrack waits for the drain in progress
+    private final Object drainLock = new Object();
+    private Flight[] drained = new Flight[64];
+    private volatile Flight[] flights = new Flight[1024];
+    private volatile long[] dirty = new long[1024 / Long.SIZE];
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int nextSlot;
+    private final LongAdder coalescedMarks = new LongAdder();
+
+    public boolean markDirty(Flight flight) {
+        Integer slot = slots.get(flight);
+        if (slot == null) {
+            return false;
+        }
+        int index = slot;
+        var bits = dirty;
+        long previous = (long) BITS.getAndBitwiseOr(bits, index >>> 6, 1L << index);
+        if ((previous & (1L << index)) != 0L) {
+            coalescedMarks.increment();
+        }
+        while (bits != dirty) {
+            bits = dirty;
+            BITS.getAndBitwiseOr(bits, index >>> 6, 1L << index);
+        }
+        return true;
+    }
+
+    public long coalescedMarks() {
+        return coalescedMarks.sum();
+    }
+
+    public synchronized void track(Flight flight) {
+        if (slots.containsKey(flight)) {
+            return;
+        }
+        int index = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : nextSlot++;
+        if (index == flights.length) {
+            flights = Arrays.copyOf(flights, index * 2);
+            var previous = dirty;
+            var grown = new long[index * 2 / Long.SIZE];
+            dirty = grown;
+            for (int i = 0; i < previous.length; i++) {
+                BITS.getAndBitwiseOr(grown, i, (long) BITS.getAndSet(previous, i, 0L));
+            }
+        }
+        flights[index] = flight;
+        slots.put(flight, index);
+    }
+
+    public boolean untrack(Flight flight) {
+        synchronized (drainLock) {
+            synchronized (this) {
+                return release(flight);
+            }
+        }
+    }
+
+    private boolean release(Flight flight) {
+        Integer slot = slots.remove(flight);
+        if (slot == null) {
+            return false;
+        }
+        int index = slot;
+        flights[index] = null;
+        long mask = 1L << index;
+        long word = (long) BITS.getAndBitwiseAnd(dirty, index >>> 6, ~mask);
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = index;
+        return (word & mask) != 0L;
+    }
+
+    public boolean isTracked(Flight flight) {
+        return slots.containsKey(flight);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public int drain(Consumer<? super Flight> consumer) {
+        synchronized (drainLock) {
+            int count = collect();
+            try {
+                for (int index = 0; index < count; index++) {
+                    consumer.accept(drained[index]);
+                }
+            } finally {
+                Arrays.fill(drained, 0, count, null);
+            }
+            return count;
+        }
+    }
+
+    private synchronized int collect() {
+        var bits = dirty;
+        var flights = this.flights;
+        if (drained.length < flights.length) {
+            drained = new Flight[flights.length];
+        }
+        int count = 0;
+        for (int word = 0; word < bits.length; word++) {
+            if ((long) BITS.getVolatile(bits, word) == 0L) {
+                continue;
+            }
+            long set = (long) BITS.getAndSet(bits, word, 0L);
+            while (set != 0L) {
+                int index = (word << 6) + Long.numberOfTrailingZeros(set);
+                set &= set - 1;
+                var flight = flights[index];
+                if (flight != null) {
+                    drained[count++] = flight;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -1,9 +1,20 @@
 package org.paumard.flightmonitoring.db;
 
+import org.paumard.flightmonitoring.db.event.FetchFlightEvent;
 import org.paumard.flightmonitoring.db.model.*;
+import org.paumard.flightmonitoring.db.persistence.FlightPersistence;
+import org.paumard.flightmonitoring.db.route.Itinerary;
+import org.paumard.flightmonitoring.db.route.RouteGraph;
+import org.paumard.flightmonitoring.metrics.Counter;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+import org.paumard.flightmonitoring.metrics.SampledLog;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.Map;
+import java.util.Optional;
 
 public class FlightDBService {
 
@@ -18,20 +29,135 @@ public class FlightDBService {
             Map.entry("Mi", new City("Miami"))
     );
 
-    private static Map<IDFlight, Flight> flights = new HashMap<>();
+    // declared first: recovering the persisted flights already loads them
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Counter fetches = metrics.counter("db.fetch.count");
+    private static final Counter misses = metrics.counter("db.fetch.misses");
+    private static final Counter priceUpdates = metrics.counter("db.price.updates");
+    private static final SampledLog fetchLog = new SampledLog();
+
+    private static final RouteGraph routes = new RouteGraph(cities);
+
+    private static final FlightStore flights = new FlightStore(FlightDBService::loadFlight);
+
+    private static final FlightPersistence persistence = createPersistence();
+
+    static {
+        metrics.gauge("db.flights.cached", flights::size);
+        if (persistence != null) {
+            metrics.gauge("db.persistence.recovery-ms", () -> persistence.recoveryTime().toMillis());
+            metrics.gauge("db.persistence.recovered-flights", persistence::recoveredFlights);
+            var writeBehind = persistence.writeBehind();
+            metrics.gauge("db.persistence.flushed-prices", writeBehind::flushedPrices);
+            metrics.gauge("db.persistence.last-flush-lag-ms", () -> writeBehind.lastFlushLag().toMillis());
+            metrics.gauge("db.persistence.max-flush-lag-ms", () -> writeBehind.maxFlushLag().toMillis());
+            metrics.gauge("db.persistence.failed-flushes", writeBehind::failedFlushes);
+        }
+    }
+
+    private static FlightPersistence createPersistence() {
+        var directory = System.getProperty("flightmonitoring.db.dir");
+        if (directory == null) {
+            return null;
+        }
+        var flushInterval = Duration.ofMillis(Long.getLong("flightmonitoring.db.flush-interval-ms", 1_000L));
+        var batchSize = Integer.getInteger("flightmonitoring.db.batch-size", 4_096);
+        var snapshotInterval = Duration.ofMillis(Long.getLong("flightmonitoring.db.snapshot-interval-ms", 60_000L));
+        try {
+            var persistence = FlightPersistence.open(flights, Path.of(directory), flushInterval, batchSize, snapshotInterval);
+            // the last flush writes the prices of the last interval
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    persistence.close();
+                } catch (IOException e) {
+                    System.err.println("Final price flush failed: " + e);
+                }
+            }, "flight-persistence-shutdown"));
+            return persistence;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 
     public static FlightDBService getInstance() {
         return new FlightDBService();
     }
 
     public Flight fetchFlight(IDFlight flightId) {
-        System.out.println("Fetching flight " + flightId);
-
-        return flights.computeIfAbsent(flightId,
-                _ -> {
-                    var from = flightId.flightId().substring(0, 2);
-                    var to = flightId.flightId().substring(2);
-                    return new Flight(flightId, cities.get(from), cities.get(to), new Price(100), new Plane("Airbus A350"));
-                });
+        fetchLog.log("Fetching flight ", flightId);
+        fetches.increment();
+
+        if (!FetchFlightEvent.enabled()) {
+            return flights.get(flightId);
+        }
+        var event = new FetchFlightEvent();
+        event.begin();
+        event.flightId = flightId.flightId();
+        // one lookup decides the hit, a second one could see a flight loaded or evicted in between
+        var flight = flights.getIfPresent(flightId);
+        event.hit = flight != null;
+        if (flight == null) {
+            flight = flights.get(flightId);
+        }
+        event.commit();
+        return flight;
+    }
+
+    public void updatePrice(Flight flight, Price price) {
+        updatePrice(flight, price.price());
+    }
+
+    public void updatePrice(Flight flight, int price) {
+        int oldPrice = flight.updatePrice(price);
+        priceUpdates.increment();
+        routes.onPriceChanged(flight, oldPrice, price);
+        if (persistence != null) {
+            persistence.markDirty(flight);
+        }
+    }
+
+    public void evictFlight(IDFlight flightId) {
+        var flight = flights.remove(flightId);
+        if (flight == null) {
+            return;
+        }
+        routes.removeFlight(flight);
+        if (persistence != null) {
+            try {
+                persistence.forget(flight);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public boolean isCached(Flight flight) {
+        return flights.getIfPresent(flight.id()) == flight;
+    }
+
+    public int cachedFlights() {
+        return flights.size();
+    }
+
+    public int routedFlights() {
+        return routes.size();
+    }
+
+    public Optional<Itinerary> cheapestItinerary(String from, String to, int maxConnections) {
+        return routes.cheapest(from, to, maxConnections);
+    }
+
+    public Optional<FlightPersistence> persistence() {
+        return Optional.ofNullable(persistence);
+    }
+
+    private static Flight loadFlight(IDFlight flightId) {
+        misses.increment();
+        var from = flightId.flightId().substring(0, 2);
+        // the ids are <from><to>, followed by "-<n>" for the synthetic flights of the benchmark
+        var to = flightId.flightId().substring(2, 4);
+        var flight = new Flight(flightId, cities.get(from), cities.get(to), Price.of(100), new Plane("Airbus A350"));
+        routes.addFlight(flight);
+        return flight;
     }
 }
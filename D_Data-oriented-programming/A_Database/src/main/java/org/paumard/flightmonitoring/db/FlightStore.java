@@ -0,0 +1,89 @@
+package org.paumard.flightmonitoring.db;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Reads are lock-free. A miss installs a future for its key only, and the loader
+ * runs outside of any map lock: callers of the same key wait on that future.
+ */
+public class FlightStore {
+
+    private final ConcurrentHashMap<String, CompletableFuture<Flight>> flights = new ConcurrentHashMap<>();
+    private final Function<IDFlight, Flight> loader;
+
+    public FlightStore(Function<IDFlight, Flight> loader) {
+        this.loader = loader;
+    }
+
+    public Flight get(IDFlight flightId) {
+        var key = flightId.flightId();
+        var future = flights.get(key);
+        if (future == null) {
+            var loading = new CompletableFuture<Flight>();
+            future = flights.putIfAbsent(key, loading);
+            if (future == null) {
+                return load(flightId, loading);
+            }
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    private Flight load(IDFlight flightId, CompletableFuture<Flight> loading) {
+        try {
+            var flight = loader.apply(flightId);
+            loading.complete(flight);
+            return flight;
+        } catch (Throwable e) {
+            // an Error too, or the callers waiting on this future would wait forever
+            flights.remove(flightId.flightId(), loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public Flight getIfPresent(IDFlight flightId) {
+        var future = flights.get(flightId.flightId());
+        return future != null && future.isDone() && !future.isCompletedExceptionally() ? future.join() : null;
+    }
+
+    // waits for a load in flight, so that the caller can release what the loader registered
+    public Flight remove(IDFlight flightId) {
+        var future = flights.remove(flightId.flightId());
+        if (future == null) {
+            return null;
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            return null;
+        }
+    }
+
+    public boolean contains(IDFlight flightId) {
+        return getIfPresent(flightId) != null;
+    }
+
+    public Stream<Flight> stream() {
+        return flights.values().stream()
+                .filter(future -> future.isDone() && !future.isCompletedExceptionally())
+                .map(CompletableFuture::join);
+    }
+
+    public int size() {
+        return flights.size();
+    }
+}
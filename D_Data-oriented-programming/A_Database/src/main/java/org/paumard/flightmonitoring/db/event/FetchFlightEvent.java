@@ -0,0 +1,33 @@
+package org.paumard.flightmonitoring.db.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.paumard.flightmonitoring.FetchFlight")
+@Label("Fetch Flight")
+@Description("A flight read from the flight database, loaded on a miss")
+@Category({"Flight Monitoring", "Database"})
+@Threshold("100 us")
+@StackTrace(false)
+public class FetchFlightEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(FetchFlightEvent.class);
+
+    // checked before the event is created, so that a disabled event allocates nothing;
+    // a hit takes well under the threshold, so mostly the loads are kept
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Flight ID")
+    public String flightId;
+
+    @Label("Cache Hit")
+    public boolean hit;
+}
@@ -1,18 +1,24 @@
 package org.paumard.flightmonitoring.db.model;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
 public class Flight {
-    private IDFlight id;
-    private City from;
-    private City to;
-    private Price price;
-    private Plane plane;
+    private final IDFlight id;
+    private final City from;
+    private final City to;
+    private final Plane plane;
+    // version in the high 32 bits, price in the low 32 bits, published as one atomic word
+    private final AtomicLong state;
 
     public Flight(IDFlight id, City from, City to, Price price, Plane plane) {
         this.id = id;
         this.from = from;
         this.to = to;
-        this.price = price;
         this.plane = plane;
+        this.state = new AtomicLong(Integer.toUnsignedLong(price.price()));
     }
 
     public IDFlight id() {
@@ -28,16 +34,60 @@ public class Flight {
     }
 
     public Price price() {
-        return this.price;
+        return Price.of((int) this.state.get());
+    }
+
+    public FlightSnapshot snapshot() {
+        return snapshot(this.state.get());
+    }
+
+    /**
+     * The snapshots of several flights at the same instant. The states are read twice: if none
+     * changed in between, they were all current at the end of the first read. Empty if the
+     * flights kept changing during the given number of attempts.
+     */
+    public static Optional<List<FlightSnapshot>> snapshots(Flight[] flights, int maxAttempts) {
+        var states = new long[flights.length];
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            for (int i = 0; i < flights.length; i++) {
+                states[i] = flights[i].state.get();
+            }
+            boolean unchanged = true;
+            for (int i = 0; i < flights.length && unchanged; i++) {
+                unchanged = flights[i].state.get() == states[i];
+            }
+            if (unchanged) {
+                var snapshots = new ArrayList<FlightSnapshot>(flights.length);
+                for (int i = 0; i < flights.length; i++) {
+                    snapshots.add(flights[i].snapshot(states[i]));
+                }
+                return Optional.of(snapshots);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private FlightSnapshot snapshot(long state) {
+        return new FlightSnapshot(id, from, to, Price.of((int) state), plane, state >>> 32);
     }
 
     public void updatePrice(Price price) {
-        this.price = price;
+        updatePrice(price.price());
+    }
+
+    public int updatePrice(int price) {
+        while (true) {
+            long current = this.state.get();
+            long next = (((current >>> 32) + 1L) << 32) | Integer.toUnsignedLong(price);
+            if (this.state.compareAndSet(current, next)) {
+                return (int) current;
+            }
+        }
     }
 
     @Override
     public String toString() {
         return "Flight[id=" + id + ", from=" + from + ", city=" + to +
-               ", price=" + price + ", plane = " + plane + "]";
+               ", price=" + price() + ", plane = " + plane + "]";
     }
 }
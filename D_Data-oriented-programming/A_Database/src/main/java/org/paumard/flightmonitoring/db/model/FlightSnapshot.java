@@ -0,0 +1,49 @@
+package org.paumard.flightmonitoring.db.model;
+
+public final class FlightSnapshot {
+    private final IDFlight id;
+    private final City from;
+    private final City to;
+    private final Price price;
+    private final Plane plane;
+    private final long version;
+
+    public FlightSnapshot(IDFlight id, City from, City to, Price price, Plane plane, long version) {
+        this.id = id;
+        this.from = from;
+        this.to = to;
+        this.price = price;
+        this.plane = plane;
+        this.version = version;
+    }
+
+    public IDFlight id() {
+        return this.id;
+    }
+
+    public City from() {
+        return this.from;
+    }
+
+    public City to() {
+        return this.to;
+    }
+
+    public Price price() {
+        return this.price;
+    }
+
+    public Plane plane() {
+        return this.plane;
+    }
+
+    public long version() {
+        return this.version;
+    }
+
+    @Override
+    public String toString() {
+        return "FlightSnapshot[id=" + id + ", from=" + from + ", to=" + to +
+               ", price=" + price + ", plane=" + plane + ", version=" + version + "]";
+    }
+}
@@ -1,12 +1,26 @@
 package org.paumard.flightmonitoring.db.model;
 
+import org.paumard.flightmonitoring.intern.WeakInterner;
+
 public class IDFlight {
+    // weakly held: the canonical instance of an id that nothing refers to anymore is released
+    private static final WeakInterner<IDFlight> CANONICAL = new WeakInterner<>(IDFlight::new);
+
     private String flightId;
 
     public IDFlight(String id) {
         this.flightId = id;
     }
 
+    public static IDFlight of(String id) {
+        return CANONICAL.intern(id);
+    }
+
+    // the ids released by the GC are only removed by a later intern
+    public static int canonicalCount() {
+        return CANONICAL.size();
+    }
+
     public String flightId() {
         return this.flightId;
     }
@@ -1,12 +1,24 @@
 package org.paumard.flightmonitoring.db.model;
 
 public class Price {
+    private static final Price[] CACHE = new Price[4_096];
+
+    static {
+        for (int price = 0; price < CACHE.length; price++) {
+            CACHE[price] = new Price(price);
+        }
+    }
+
     private final int price;
 
     public Price(int price) {
         this.price = price;
     }
 
+    public static Price of(int price) {
+        return price >= 0 && price < CACHE.length ? CACHE[price] : new Price(price);
+    }
+
     public int price() {
         return this.price;
     }
@@ -0,0 +1,119 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import org.paumard.flightmonitoring.db.FlightStore;
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A snapshot of the flight table, plus the log of the prices written since that
+ * snapshot. Recovery maps the snapshot, then replays the tail of the log.
+ */
+public class FlightPersistence implements AutoCloseable {
+
+    private final FlightStore store;
+    private final Path snapshotPath;
+    private final PriceLog log;
+    private final PriceWriteBehind writeBehind;
+    private final ScheduledExecutorService snapshotExecutor;
+
+    private final Duration recoveryTime;
+    private final long recoveredFlights;
+    private volatile long lastSnapshotNanos;
+
+    private FlightPersistence(FlightStore store, Path snapshotPath, PriceLog log,
+                              Duration recoveryTime, long recoveredFlights, PriceWriteBehind writeBehind) {
+        this.store = store;
+        this.snapshotPath = snapshotPath;
+        this.log = log;
+        this.recoveryTime = recoveryTime;
+        this.recoveredFlights = recoveredFlights;
+        this.writeBehind = writeBehind;
+        this.snapshotExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("flight-snapshot").factory());
+    }
+
+    /**
+     * Recovers the flights of the directory into the store, then starts the
+     * write-behind of the prices and the periodic snapshots.
+     */
+    public static FlightPersistence open(FlightStore store, Path directory,
+                                         Duration flushInterval, int batchSize, Duration snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        var snapshotPath = directory.resolve("flights.snapshot");
+        var log = new PriceLog(directory.resolve("prices.log"));
+        long start = System.nanoTime();
+        SnapshotFile.read(snapshotPath, (flightId, price) -> restore(store, flightId, price));
+        log.replay((flightId, price) -> restore(store, flightId, price));
+        var recoveryTime = Duration.ofNanos(System.nanoTime() - start);
+
+        var writeBehind = new PriceWriteBehind(log, flushInterval, batchSize);
+        var persistence = new FlightPersistence(store, snapshotPath, log, recoveryTime, store.size(), writeBehind);
+        long interval = snapshotInterval.toNanos();
+        persistence.snapshotExecutor.scheduleWithFixedDelay(persistence::snapshotQuietly, interval, interval, TimeUnit.NANOSECONDS);
+        return persistence;
+    }
+
+    private static void restore(FlightStore store, String flightId, int price) {
+        store.get(IDFlight.of(flightId)).updatePrice(price);
+    }
+
+    public void markDirty(Flight flight) {
+        writeBehind.markDirty(flight);
+    }
+
+    public void forget(Flight flight) throws IOException {
+        writeBehind.forget(flight);
+    }
+
+    public void snapshot() throws IOException {
+        writeBehind.checkpoint(() -> {
+            long start = System.nanoTime();
+            SnapshotFile.write(snapshotPath, store.stream()::iterator);
+            log.truncate();
+            lastSnapshotNanos = System.nanoTime() - start;
+        });
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            // the next snapshot tries again, the log keeps the prices in the meantime
+            System.err.println("Flight snapshot failed: " + e);
+        }
+    }
+
+    public Duration recoveryTime() {
+        return recoveryTime;
+    }
+
+    public long recoveredFlights() {
+        return recoveredFlights;
+    }
+
+    public Duration lastSnapshotTime() {
+        return Duration.ofNanos(lastSnapshotNanos);
+    }
+
+    public PriceWriteBehind writeBehind() {
+        return writeBehind;
+    }
+
+    @Override
+    public void close() throws IOException {
+        snapshotExecutor.shutdown();
+        try {
+            snapshotExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeBehind.close();
+    }
+}
@@ -0,0 +1,42 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import java.util.Arrays;
+
+public class PriceBatch {
+    private final String[] flightIds;
+    private final int[] prices;
+    private int size;
+
+    public PriceBatch(int capacity) {
+        this.flightIds = new String[capacity];
+        this.prices = new int[capacity];
+    }
+
+    public boolean add(String flightId, int price) {
+        flightIds[size] = flightId;
+        prices[size] = price;
+        size++;
+        return size == flightIds.length;
+    }
+
+    public String flightId(int index) {
+        return flightIds[index];
+    }
+
+    public int price(int index) {
+        return prices[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(flightIds, 0, size, null);
+        size = 0;
+    }
+}
@@ -0,0 +1,12 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import java.io.IOException;
+
+public interface PriceBatchWriter extends AutoCloseable {
+
+    void write(PriceBatch batch) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,67 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+
+public class PriceLog implements PriceBatchWriter {
+
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public PriceLog(Path path) throws IOException {
+        this.channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.channel.position(channel.size());
+    }
+
+    public long replay(ObjIntConsumer<String> consumer) throws IOException {
+        var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+        int valid = PriceRecords.readAll(mapped, consumer);
+        if (valid < channel.size()) {
+            channel.truncate(valid);
+        }
+        channel.position(valid);
+        return valid;
+    }
+
+    @Override
+    public void write(PriceBatch batch) throws IOException {
+        for (int i = 0; i < batch.size(); i++) {
+            var flightId = batch.flightId(i).getBytes(StandardCharsets.US_ASCII);
+            if (buffer.remaining() < PriceRecords.size(flightId)) {
+                drain();
+            }
+            PriceRecords.put(buffer, flightId, batch.price(i));
+        }
+        drain();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public void truncate() throws IOException {
+        channel.truncate(0L);
+        channel.position(0L);
+    }
+
+    public long size() throws IOException {
+        return channel.size();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
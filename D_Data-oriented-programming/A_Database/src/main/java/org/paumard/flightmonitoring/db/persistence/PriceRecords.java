@@ -0,0 +1,31 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.ObjIntConsumer;
+
+class PriceRecords {
+
+    static int size(byte[] flightId) {
+        return 1 + flightId.length + Integer.BYTES;
+    }
+
+    static void put(ByteBuffer buffer, byte[] flightId, int price) {
+        buffer.put((byte) flightId.length).put(flightId).putInt(price);
+    }
+
+    static int readAll(ByteBuffer buffer, ObjIntConsumer<String> consumer) {
+        var flightId = new byte[255];
+        while (buffer.remaining() >= 1) {
+            int start = buffer.position();
+            int length = Byte.toUnsignedInt(buffer.get());
+            if (buffer.remaining() < length + Integer.BYTES) {
+                return start;
+            }
+            buffer.get(flightId, 0, length);
+            int price = buffer.getInt();
+            consumer.accept(new String(flightId, 0, length, StandardCharsets.US_ASCII), price);
+        }
+        return buffer.position();
+    }
+}
@@ -0,0 +1,201 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import org.paumard.flightmonitoring.db.DirtyFlights;
+import org.paumard.flightmonitoring.db.model.Flight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Marking a flight dirty sets one bit and never blocks. A background thread drains
+ * the bits on every flush interval and writes the latest price of each dirty flight,
+ * so the ticks that happened between two flushes are coalesced into a single write.
+ * If a write fails, the flights that were not written are marked dirty again, and
+ * written by the next flush.
+ */
+public class PriceWriteBehind implements AutoCloseable {
+
+    private final PriceBatchWriter writer;
+    private final int batchSize;
+    private final ScheduledExecutorService executor;
+
+    private final DirtyFlights dirty = new DirtyFlights();
+    // the flights of the batch being filled, to mark them dirty again if it cannot be written
+    private final Flight[] pending;
+    private final AtomicLong oldestDirtyNanos = new AtomicLong();
+
+    private volatile long lastFlushLagNanos;
+    private volatile long maxFlushLagNanos;
+    private final AtomicLong flushedPrices = new AtomicLong();
+    private final AtomicLong flushedBatches = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private volatile IOException lastFailure;
+
+    public PriceWriteBehind(PriceBatchWriter writer, Duration flushInterval, int batchSize) {
+        this.writer = writer;
+        this.batchSize = batchSize;
+        this.pending = new Flight[batchSize];
+        this.executor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("price-write-behind").factory());
+        long interval = flushInterval.toNanos();
+        executor.scheduleWithFixedDelay(this::flushQuietly, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    public void markDirty(Flight flight) {
+        if (!dirty.markDirty(flight)) {
+            dirty.track(flight);
+            dirty.markDirty(flight);
+        }
+        if (oldestDirtyNanos.get() == 0L) {
+            oldestDirtyNanos.compareAndSet(0L, System.nanoTime());
+        }
+    }
+
+    public synchronized void forget(Flight flight) throws IOException {
+        if (dirty.untrack(flight)) {
+            var batch = new PriceBatch(1);
+            batch.add(flight.id().flightId(), flight.price().price());
+            try {
+                writeBatch(batch);
+            } catch (UncheckedIOException e) {
+                // kept, so that its price is written by the next flush
+                markDirty(flight);
+                failed(e.getCause());
+                throw e.getCause();
+            }
+        }
+    }
+
+    // an exception escaping a scheduled task would cancel the next flushes
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            // already counted, the flights are written by the next flush
+            System.err.println("Price flush failed: " + e);
+        } catch (RuntimeException e) {
+            failedFlushes.incrementAndGet();
+            System.err.println("Price flush failed: " + e);
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        try {
+            doFlush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void doFlush() {
+        long oldest = oldestDirtyNanos.getAndSet(0L);
+        var batch = new PriceBatch(batchSize);
+        var failure = new UncheckedIOException[1];
+        dirty.drain(flight -> {
+            if (failure[0] != null) {
+                markDirty(flight);
+                return;
+            }
+            pending[batch.size()] = flight;
+            if (batch.add(flight.id().flightId(), flight.price().price())) {
+                failure[0] = writePending(batch);
+            }
+        });
+        if (failure[0] == null && !batch.isEmpty()) {
+            failure[0] = writePending(batch);
+        }
+        if (failure[0] != null) {
+            oldestDirtyNanos.compareAndSet(0L, oldest == 0L ? System.nanoTime() : oldest);
+            failed(failure[0].getCause());
+            throw failure[0];
+        }
+        if (oldest != 0L) {
+            long lag = System.nanoTime() - oldest;
+            lastFlushLagNanos = lag;
+            maxFlushLagNanos = Math.max(maxFlushLagNanos, lag);
+        }
+    }
+
+    private UncheckedIOException writePending(PriceBatch batch) {
+        int size = batch.size();
+        try {
+            writeBatch(batch);
+            return null;
+        } catch (UncheckedIOException e) {
+            for (int i = 0; i < size; i++) {
+                markDirty(pending[i]);
+            }
+            batch.clear();
+            return e;
+        } finally {
+            Arrays.fill(pending, 0, size, null);
+        }
+    }
+
+    private void failed(IOException e) {
+        failedFlushes.incrementAndGet();
+        lastFailure = e;
+    }
+
+    public synchronized void checkpoint(Checkpoint checkpoint) throws IOException {
+        flush();
+        checkpoint.run();
+    }
+
+    public interface Checkpoint {
+        void run() throws IOException;
+    }
+
+    private void writeBatch(PriceBatch batch) {
+        try {
+            writer.write(batch);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        flushedPrices.addAndGet(batch.size());
+        flushedBatches.incrementAndGet();
+        batch.clear();
+    }
+
+    public Duration lastFlushLag() {
+        return Duration.ofNanos(lastFlushLagNanos);
+    }
+
+    public Duration maxFlushLag() {
+        return Duration.ofNanos(maxFlushLagNanos);
+    }
+
+    public long flushedPrices() {
+        return flushedPrices.get();
+    }
+
+    public long flushedBatches() {
+        return flushedBatches.get();
+    }
+
+    public long failedFlushes() {
+        return failedFlushes.get();
+    }
+
+    public Optional<IOException> lastFailure() {
+        return Optional.ofNullable(lastFailure);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        writer.close();
+    }
+}
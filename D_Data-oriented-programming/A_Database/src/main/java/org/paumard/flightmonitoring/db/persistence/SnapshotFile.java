@@ -0,0 +1,80 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.ObjIntConsumer;
+
+public class SnapshotFile {
+
+    private static final int MAGIC = 0x464C5350; // FLSP
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    public static int write(Path path, Iterable<Flight> flights) throws IOException {
+        var temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int count = 0;
+        try (var channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.position(HEADER_SIZE);
+            for (var flight : flights) {
+                var flightId = flight.id().flightId().getBytes(StandardCharsets.US_ASCII);
+                if (buffer.remaining() < PriceRecords.size(flightId)) {
+                    drain(channel, buffer);
+                }
+                PriceRecords.put(buffer, flightId, flight.price().price());
+                count++;
+            }
+            drain(channel, buffer);
+            channel.write(ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).putInt(count).flip(), 0L);
+            channel.force(true);
+        }
+        Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return count;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static int read(Path path, ObjIntConsumer<String> consumer) throws IOException {
+        if (Files.notExists(path)) {
+            return 0;
+        }
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0L, channel.size());
+            if (mapped.remaining() < HEADER_SIZE || mapped.getInt() != MAGIC) {
+                throw new IOException("Not a flight snapshot: " + path);
+            }
+            int version = mapped.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported snapshot version " + version + ": " + path);
+            }
+            int count = mapped.getInt();
+            var records = mapped.slice();
+            int[] read = {0};
+            PriceRecords.readAll(records, (flightId, price) -> {
+                if (read[0]++ < count) {
+                    consumer.accept(flightId, price);
+                }
+            });
+            if (read[0] < count) {
+                throw new IOException("Truncated snapshot, " + read[0] + " of " + count + " flights: " + path);
+            }
+            return count;
+        }
+    }
+}
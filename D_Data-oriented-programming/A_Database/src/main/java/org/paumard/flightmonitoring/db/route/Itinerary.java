@@ -0,0 +1,32 @@
+package org.paumard.flightmonitoring.db.route;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+
+import java.util.List;
+
+public class Itinerary {
+    private final List<Flight> legs;
+    private final int price;
+
+    public Itinerary(List<Flight> legs, int price) {
+        this.legs = List.copyOf(legs);
+        this.price = price;
+    }
+
+    public List<Flight> legs() {
+        return this.legs;
+    }
+
+    public int price() {
+        return this.price;
+    }
+
+    public int connections() {
+        return this.legs.size() - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "Itinerary[legs=" + legs + ", price=" + price + "]";
+    }
+}
@@ -0,0 +1,267 @@
+package org.paumard.flightmonitoring.db.route;
+
+import org.paumard.flightmonitoring.db.model.City;
+import org.paumard.flightmonitoring.db.model.Flight;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The cities are the vertices and the flights the edges, stored in primitive
+ * adjacency arrays that are rebuilt on the first query after a flight is added
+ * or removed. Adding or removing a flight only marks the arrays stale, without
+ * any lock, so it can be called from the loader of a flight. A search works on
+ * a copy of the prices taken under a stamped lock, so that it never sees half
+ * of a price update. Cheapest itineraries are cached: a price increase evicts the
+ * cached itineraries that use that flight, a price decrease evicts the ones that
+ * cost more than the new price, since only those could now go through it. Both
+ * are found through an index, by flight and by price.
+ */
+public class RouteGraph {
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private final Map<String, Integer> cityIndexes = new HashMap<>();
+    private final IdentityHashMap<City, Integer> cityIndexesByCity = new IdentityHashMap<>();
+    private final int cityCount;
+
+    private final Object topologyLock = new Object();
+    private final Set<Flight> flights = ConcurrentHashMap.newKeySet();
+    private volatile boolean stale;
+    private volatile Topology topology;
+
+    private final ConcurrentHashMap<Long, Cached> cache = new ConcurrentHashMap<>();
+    private final AtomicLong priceVersion = new AtomicLong();
+    private final StampedLock pricesLock = new StampedLock();
+    // the sets are kept once created, so that a query indexed while its price is evicted is not lost
+    private final ConcurrentSkipListMap<Integer, Set<Long>> cachedQueriesByPrice = new ConcurrentSkipListMap<>();
+
+    private record Topology(int[] firstEdge, int[] edgeFrom, int[] edgeTo, int[] edgePrices,
+                            Flight[] edgeFlights, IdentityHashMap<Flight, Integer> edgeIndexes,
+                            List<Set<Long>> cachedQueriesByEdge) {
+    }
+
+    private record Cached(Itinerary itinerary, int[] edges) {
+    }
+
+    public RouteGraph(Map<String, City> cities) {
+        for (var entry : new TreeMap<>(cities).entrySet()) {
+            int index = cityIndexes.size();
+            cityIndexes.put(entry.getKey(), index);
+            cityIndexesByCity.put(entry.getValue(), index);
+        }
+        this.cityCount = cityIndexes.size();
+        this.topology = build(new Flight[0]);
+    }
+
+    public void addFlight(Flight flight) {
+        if (!cityIndexesByCity.containsKey(flight.from()) || !cityIndexesByCity.containsKey(flight.to())) {
+            return;
+        }
+        if (flights.add(flight)) {
+            invalidateTopology();
+        }
+    }
+
+    public void removeFlight(Flight flight) {
+        if (flights.remove(flight)) {
+            invalidateTopology();
+        }
+    }
+
+    public int size() {
+        return flights.size();
+    }
+
+    // the queries running on the previous topology are not cached, the cache is cleared on the next rebuild
+    private void invalidateTopology() {
+        priceVersion.incrementAndGet();
+        stale = true;
+    }
+
+    private Topology currentTopology() {
+        if (stale) {
+            synchronized (topologyLock) {
+                if (stale) {
+                    // cleared before reading the flights: a flight added during the build marks it stale again
+                    stale = false;
+                    cache.clear();
+                    cachedQueriesByPrice.clear();
+                    topology = build(flights.toArray(Flight[]::new));
+                }
+            }
+        }
+        return topology;
+    }
+
+    private Topology build(Flight[] flights) {
+        int edgeCount = flights.length;
+        var firstEdge = new int[cityCount + 1];
+        for (var flight : flights) {
+            firstEdge[cityIndexesByCity.get(flight.from()) + 1]++;
+        }
+        for (int city = 0; city < cityCount; city++) {
+            firstEdge[city + 1] += firstEdge[city];
+        }
+        var edgeFrom = new int[edgeCount];
+        var edgeTo = new int[edgeCount];
+        var edgePrices = new int[edgeCount];
+        var edgeFlights = new Flight[edgeCount];
+        var edgeIndexes = new IdentityHashMap<Flight, Integer>();
+        var cachedQueries = new ArrayList<Set<Long>>(edgeCount);
+        var next = Arrays.copyOf(firstEdge, cityCount);
+        for (var flight : flights) {
+            int from = cityIndexesByCity.get(flight.from());
+            int edge = next[from]++;
+            edgeFrom[edge] = from;
+            edgeTo[edge] = cityIndexesByCity.get(flight.to());
+            edgePrices[edge] = flight.price().price();
+            edgeFlights[edge] = flight;
+            edgeIndexes.put(flight, edge);
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            cachedQueries.add(ConcurrentHashMap.newKeySet());
+        }
+        return new Topology(firstEdge, edgeFrom, edgeTo, edgePrices, edgeFlights, edgeIndexes, cachedQueries);
+    }
+
+    public void onPriceChanged(Flight flight, int oldPrice, int newPrice) {
+        var current = topology;
+        Integer edge = current.edgeIndexes().get(flight);
+        if (edge == null || oldPrice == newPrice) {
+            return;
+        }
+        long stamp = pricesLock.writeLock();
+        try {
+            current.edgePrices()[edge] = newPrice;
+            var latest = topology;
+            if (latest != current) {
+                Integer latestEdge = latest.edgeIndexes().get(flight);
+                if (latestEdge != null) {
+                    latest.edgePrices()[latestEdge] = flight.price().price();
+                }
+            }
+        } finally {
+            pricesLock.unlockWrite(stamp);
+        }
+        priceVersion.incrementAndGet();
+        if (newPrice > oldPrice) {
+            evict(current.cachedQueriesByEdge().get(edge));
+        } else {
+            for (var queries : cachedQueriesByPrice.tailMap(newPrice, false).values()) {
+                evict(queries);
+            }
+        }
+    }
+
+    // a query indexed during the eviction was computed after the price change, it can stay
+    private void evict(Set<Long> queries) {
+        for (var iterator = queries.iterator(); iterator.hasNext(); ) {
+            var query = iterator.next();
+            iterator.remove();
+            cache.remove(query);
+        }
+    }
+
+    public Optional<Itinerary> cheapest(String from, String to, int maxConnections) {
+        Integer source = cityIndexes.get(from);
+        Integer target = cityIndexes.get(to);
+        if (source == null || target == null || maxConnections < 0) {
+            return Optional.empty();
+        }
+        // an itinerary visits each city at most once, so more connections than that change nothing
+        int maxLegs = Math.min(maxConnections, cityCount - 1) + 1;
+        long query = ((long) source << 40) | ((long) target << 20) | maxLegs;
+        long version = priceVersion.get();
+        var current = currentTopology();
+        var cached = cache.get(query);
+        if (cached != null) {
+            return Optional.ofNullable(cached.itinerary());
+        }
+
+        var computed = search(current, source, target, maxLegs);
+        if (priceVersion.get() == version) {
+            cache.put(query, computed);
+            for (int edge : computed.edges()) {
+                current.cachedQueriesByEdge().get(edge).add(query);
+            }
+            if (computed.itinerary() != null) {
+                cachedQueriesByPrice.computeIfAbsent(computed.itinerary().price(), _ -> ConcurrentHashMap.newKeySet())
+                        .add(query);
+            }
+            if (priceVersion.get() != version) {
+                cache.remove(query, computed);
+            }
+        }
+        return Optional.ofNullable(computed.itinerary());
+    }
+
+    private Cached search(Topology graph, int source, int target, int maxLegs) {
+        var prices = prices(graph);
+        var firstEdge = graph.firstEdge();
+        var parentEdge = new int[maxLegs + 1][cityCount];
+        var costs = new int[maxLegs + 1][];
+        costs[0] = new int[cityCount];
+        Arrays.fill(costs[0], UNREACHABLE);
+        costs[0][source] = 0;
+        Arrays.fill(parentEdge[0], -1);
+
+        for (int legs = 1; legs <= maxLegs; legs++) {
+            var next = costs[legs - 1].clone();
+            var parents = parentEdge[legs];
+            Arrays.fill(parents, -1);
+            var previous = costs[legs - 1];
+            for (int from = 0; from < cityCount; from++) {
+                if (previous[from] == UNREACHABLE) {
+                    continue;
+                }
+                for (int edge = firstEdge[from]; edge < firstEdge[from + 1]; edge++) {
+                    int to = graph.edgeTo()[edge];
+                    int candidate = previous[from] + prices[edge];
+                    if (candidate < next[to]) {
+                        next[to] = candidate;
+                        parents[to] = edge;
+                    }
+                }
+            }
+            costs[legs] = next;
+        }
+
+        if (costs[maxLegs][target] == UNREACHABLE || source == target) {
+            return new Cached(source == target ? new Itinerary(List.of(), 0) : null, new int[0]);
+        }
+        var edges = new ArrayDeque<Integer>();
+        int city = target;
+        int legs = maxLegs;
+        while (city != source) {
+            while (parentEdge[legs][city] == -1) {
+                legs--;
+            }
+            int edge = parentEdge[legs][city];
+            edges.addFirst(edge);
+            city = graph.edgeFrom()[edge];
+            legs--;
+        }
+        var path = edges.stream().mapToInt(Integer::intValue).toArray();
+        var flights = Arrays.stream(path).mapToObj(edge -> graph.edgeFlights()[edge]).toList();
+        return new Cached(new Itinerary(flights, costs[maxLegs][target]), path);
+    }
+
+    // a copy of the prices of one instant, the writers only hold the lock for a single store
+    private int[] prices(Topology graph) {
+        long stamp = pricesLock.tryOptimisticRead();
+        var prices = graph.edgePrices().clone();
+        if (!pricesLock.validate(stamp)) {
+            stamp = pricesLock.readLock();
+            try {
+                prices = graph.edgePrices().clone();
+            } finally {
+                pricesLock.unlockRead(stamp);
+            }
+        }
+        return prices;
+    }
+}
@@ -0,0 +1,83 @@
+package org.paumard.flightmonitoring.db;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DirtyFlightsTest {
+
+    private static Flight newFlight(String id) {
+        return new Flight(new IDFlight(id), new City("Paris"), new City("Miami"), new Price(100), new Plane("Airbus A350"));
+    }
+
+    @Test
+    public void drains_only_the_flights_marked_since_the_last_drain() {
+        var dirtyFlights = new DirtyFlights();
+        var flights = new ArrayList<Flight>();
+        for (int i = 0; i < 100_000; i++) {
+            var flight = newFlight("PaMi" + i);
+            flights.add(flight);
+            dirtyFlights.track(flight);
+        }
+        var changed = new HashSet<Flight>();
+        for (int i = 0; i < flights.size(); i += 50) {
+            dirtyFlights.markDirty(flights.get(i));
+            dirtyFlights.markDirty(flights.get(i));
+            changed.add(flights.get(i));
+        }
+
+        Set<Flight> drained = new HashSet<>();
+        int count = dirtyFlights.drain(drained::add);
+
+        assertThat(count).isEqualTo(2_000);
+        assertThat(drained).isEqualTo(changed);
+        assertThat(dirtyFlights.coalescedMarks()).isEqualTo(2_000L);
+        assertThat(dirtyFlights.drain(_ -> {})).isZero();
+    }
+
+    @Test
+    public void ignores_untracked_flights() {
+        var dirtyFlights = new DirtyFlights();
+
+        assertThat(dirtyFlights.markDirty(newFlight("PaMi"))).isFalse();
+        assertThat(dirtyFlights.drain(_ -> {})).isZero();
+    }
+
+    @Test
+    public void tracking_does_not_wait_for_a_slow_drain() throws Exception {
+        var dirtyFlights = new DirtyFlights();
+        var flight = newFlight("PaMi-slow-drain");
+        dirtyFlights.track(flight);
+        dirtyFlights.markDirty(flight);
+        var draining = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var drain = executor.submit(() -> dirtyFlights.drain(_ -> {
+                draining.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            draining.await();
+
+            var newFlight = newFlight("PaMi-tracked-meanwhile");
+            dirtyFlights.track(newFlight);
+            assertThat(dirtyFlights.markDirty(newFlight)).isTrue();
+
+            release.countDown();
+            assertThat(drain.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        }
+        assertThat(dirtyFlights.drain(_ -> {})).isEqualTo(1);
+    }
+}
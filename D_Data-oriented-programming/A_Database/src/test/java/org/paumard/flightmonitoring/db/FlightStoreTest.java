@@ -0,0 +1,152 @@
+package org.paumard.flightmonitoring.db;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightStoreTest {
+
+    private static Flight newFlight(IDFlight id) {
+        return new Flight(id, new City("Paris"), new City("Miami"), new Price(100), new Plane("Airbus A350"));
+    }
+
+    @Test
+    public void loads_each_key_once_under_contention() throws Exception {
+        var loads = new AtomicInteger();
+        var store = new FlightStore(id -> {
+            loads.incrementAndGet();
+            return newFlight(id);
+        });
+        int threads = 16;
+        int keys = 1_000;
+        var start = new CountDownLatch(1);
+        var seen = ConcurrentHashMap.<Flight>newKeySet();
+
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int round = 0; round < 20; round++) {
+                        for (int k = 0; k < keys; k++) {
+                            seen.add(store.get(new IDFlight("PaMi" + k)));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (var future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        }
+
+        assertThat(loads.get()).isEqualTo(keys);
+        assertThat(store.size()).isEqualTo(keys);
+        assertThat(seen).hasSize(keys);
+    }
+
+    @Test
+    public void slow_loader_does_not_block_other_keys() throws Exception {
+        var slowLoadStarted = new CountDownLatch(1);
+        var releaseSlowLoad = new CountDownLatch(1);
+        var store = new FlightStore(id -> {
+            if (id.flightId().equals("PaMi")) {
+                slowLoadStarted.countDown();
+                try {
+                    releaseSlowLoad.await();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return newFlight(id);
+        });
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            var slow = executor.submit(() -> store.get(new IDFlight("PaMi")));
+            slowLoadStarted.await();
+
+            var other = executor.submit(() -> store.get(new IDFlight("LoNY")));
+            assertThat(other.get(5, TimeUnit.SECONDS).id().flightId()).isEqualTo("LoNY");
+            assertThat(store.getIfPresent(new IDFlight("PaMi"))).isNull();
+
+            releaseSlowLoad.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS).id().flightId()).isEqualTo("PaMi");
+        }
+    }
+
+    @Test
+    public void failed_load_is_retried() {
+        var failures = new AtomicInteger(1);
+        var store = new FlightStore(id -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return newFlight(id);
+        });
+        var id = new IDFlight("PaMi");
+
+        try {
+            store.get(id);
+        } catch (IllegalStateException expected) {
+        }
+
+        assertThat(store.contains(id)).isFalse();
+        assertThat(store.get(id)).isSameAs(store.get(id));
+    }
+
+    @Test
+    public void load_failing_with_an_error_releases_the_key() {
+        var failures = new AtomicInteger(1);
+        var store = new FlightStore(id -> {
+            if (failures.getAndDecrement() > 0) {
+                throw new ExceptionInInitializerError("Driver not initialized");
+            }
+            return newFlight(id);
+        });
+        var id = new IDFlight("PaMi");
+
+        try {
+            store.get(id);
+        } catch (ExceptionInInitializerError expected) {
+        }
+
+        assertThat(store.size()).isEqualTo(0);
+        assertThat(store.get(id).id().flightId()).isEqualTo("PaMi");
+    }
+
+    @Test
+    public void remove_waits_for_a_load_in_flight() throws Exception {
+        var loading = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var store = new FlightStore(id -> {
+            loading.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return newFlight(id);
+        });
+        var id = new IDFlight("PaMi");
+
+        try (var executor = Executors.newSingleThreadExecutor()) {
+            var loaded = executor.submit(() -> store.get(id));
+            loading.await();
+            var removing = CompletableFuture.supplyAsync(() -> store.remove(id));
+            Thread.sleep(50);
+            assertThat(removing.isDone()).isFalse();
+
+            release.countDown();
+
+            assertThat(removing.get(5, TimeUnit.SECONDS)).isSameAs(loaded.get(5, TimeUnit.SECONDS));
+            assertThat(store.size()).isEqualTo(0);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.paumard.flightmonitoring.db.event;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.FlightDBService;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FetchFlightEventTest {
+
+    @Test
+    public void is_disabled_without_a_recording() {
+        assertThat(FetchFlightEvent.enabled()).isFalse();
+    }
+
+    @Test
+    public void records_a_miss_then_a_hit() throws Exception {
+        var dbService = FlightDBService.getInstance();
+        var flightId = IDFlight.of("PaAm-event");
+        var file = Files.createTempFile("fetch-flight", ".jfr");
+
+        try (var recording = new Recording()) {
+            recording.enable("org.paumard.flightmonitoring.FetchFlight").withThreshold(java.time.Duration.ZERO);
+            recording.start();
+            dbService.fetchFlight(flightId);
+            dbService.fetchFlight(flightId);
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            dbService.evictFlight(flightId);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("org.paumard.flightmonitoring.FetchFlight"))
+                .filter(event -> event.getString("flightId").equals("PaAm-event"))
+                .toList();
+        Files.delete(file);
+
+        assertThat(events.stream().map(event -> event.getBoolean("hit")).toList()).containsExactly(false, true);
+    }
+}
@@ -0,0 +1,75 @@
+package org.paumard.flightmonitoring.db.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightTest {
+
+    @Test
+    public void readers_see_consistent_versioned_snapshots() throws Exception {
+        var flight = new Flight(new IDFlight("PaMi"), new City("Paris"), new City("Miami"), new Price(0), new Plane("Airbus A350"));
+        var running = new AtomicBoolean(true);
+
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var readers = executor.submit(() -> {
+                long lastVersion = -1L;
+                long reads = 0L;
+                while (running.get()) {
+                    var snapshot = flight.snapshot();
+                    assertThat((long) snapshot.price().price()).isEqualTo(snapshot.version());
+                    assertThat(snapshot.version()).isGreaterThanOrEqualTo(lastVersion);
+                    lastVersion = snapshot.version();
+                    reads++;
+                }
+                return reads;
+            });
+            for (int price = 1; price <= 1_000_000; price++) {
+                flight.updatePrice(new Price(price));
+            }
+            running.set(false);
+
+            assertThat(readers.get(10, TimeUnit.SECONDS)).isPositive();
+        }
+        assertThat(flight.snapshot().version()).isEqualTo(1_000_000L);
+        assertThat(flight.price().price()).isEqualTo(1_000_000);
+    }
+
+    @Test
+    public void snapshots_of_several_flights_are_taken_at_the_same_instant() throws Exception {
+        // the writer updates PaMi then LoNY: at any instant, PaMi is at most one version ahead
+        var paMi = new Flight(new IDFlight("PaMi"), new City("Paris"), new City("Miami"), new Price(0), new Plane("Airbus A350"));
+        var loNY = new Flight(new IDFlight("LoNY"), new City("London"), new City("New York"), new Price(0), new Plane("Airbus A350"));
+        var flights = new Flight[]{paMi, loNY};
+        var running = new AtomicBoolean(true);
+
+        try (var executor = Executors.newFixedThreadPool(1)) {
+            var writer = executor.submit(() -> {
+                for (int price = 1; running.get(); price++) {
+                    paMi.updatePrice(price);
+                    loNY.updatePrice(price);
+                    Thread.onSpinWait();
+                }
+            });
+            long consistent = 0L;
+            for (int read = 0; read < 100_000; read++) {
+                var snapshots = Flight.snapshots(flights, 10);
+                if (snapshots.isPresent()) {
+                    consistent++;
+                    long ahead = snapshots.get().get(0).version() - snapshots.get().get(1).version();
+                    assertThat(ahead).isBetween(0L, 1L);
+                }
+            }
+            running.set(false);
+            writer.get(10, TimeUnit.SECONDS);
+
+            assertThat(consistent).isPositive();
+        }
+        assertThat(Flight.snapshots(flights, 1).orElseThrow().get(1).version())
+                .isEqualTo(loNY.snapshot().version());
+    }
+}
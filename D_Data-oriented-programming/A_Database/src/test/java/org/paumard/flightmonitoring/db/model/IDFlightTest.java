@@ -0,0 +1,29 @@
+package org.paumard.flightmonitoring.db.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IDFlightTest {
+
+    @Test
+    public void canonical_ids_are_shared_while_referenced() {
+        var id = IDFlight.of("PaMi-canonical");
+
+        assertThat(IDFlight.of(new String("PaMi-canonical"))).isSameAs(id);
+    }
+
+    @Test
+    public void canonical_ids_no_longer_referenced_are_released() throws InterruptedException {
+        for (int i = 0; i < 100_000; i++) {
+            IDFlight.of("PaMi-released-" + i);
+        }
+        for (int attempt = 0; attempt < 10 && IDFlight.canonicalCount() > 1_000; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            IDFlight.of("PaMi-purge-" + attempt);
+        }
+
+        assertThat(IDFlight.canonicalCount()).isLessThan(1_000L);
+    }
+}
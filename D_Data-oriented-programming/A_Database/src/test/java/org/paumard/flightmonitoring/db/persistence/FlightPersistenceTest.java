@@ -0,0 +1,80 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.FlightStore;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightPersistenceTest {
+
+    private static FlightStore newStore() {
+        return new FlightStore(id -> new Flight(id, new City("Paris"), new City("Miami"), new Price(100), new Plane("Airbus A350")));
+    }
+
+    private static FlightPersistence open(FlightStore store, java.nio.file.Path directory) throws IOException {
+        return FlightPersistence.open(store, directory, Duration.ofHours(1), 1_024, Duration.ofHours(1));
+    }
+
+    private static void update(FlightStore store, FlightPersistence persistence, String flightId, int price) {
+        var flight = store.get(new IDFlight(flightId));
+        flight.updatePrice(new Price(price));
+        persistence.markDirty(flight);
+    }
+
+    @Test
+    public void recovers_snapshot_then_log_tail() throws IOException {
+        var directory = Files.createTempDirectory("flights");
+
+        var store = newStore();
+        try (var persistence = open(store, directory)) {
+            for (int i = 0; i < 10_000; i++) {
+                update(store, persistence, "PaMi" + i, i % 100);
+            }
+            persistence.snapshot();
+            update(store, persistence, "PaMi1", 150);
+            update(store, persistence, "LoNY", 90);
+        }
+
+        var recovered = newStore();
+        try (var persistence = open(recovered, directory)) {
+            assertThat(persistence.recoveredFlights()).isEqualTo(10_001L);
+            assertThat(persistence.recoveryTime().isZero()).isFalse();
+            assertThat(recovered.get(new IDFlight("PaMi42")).price().price()).isEqualTo(42);
+            assertThat(recovered.get(new IDFlight("PaMi1")).price().price()).isEqualTo(150);
+            assertThat(recovered.get(new IDFlight("LoNY")).price().price()).isEqualTo(90);
+        }
+    }
+
+    @Test
+    public void ignores_a_torn_record_at_the_end_of_the_log() throws IOException {
+        var directory = Files.createTempDirectory("flights");
+
+        var store = newStore();
+        try (var persistence = open(store, directory)) {
+            update(store, persistence, "PaMi", 110);
+        }
+        try (var channel = FileChannel.open(directory.resolve("prices.log"), StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{4, 'L', 'o', 'N'}));
+        }
+
+        var recovered = newStore();
+        try (var persistence = open(recovered, directory)) {
+            assertThat(persistence.recoveredFlights()).isEqualTo(1L);
+            assertThat(recovered.get(new IDFlight("PaMi")).price().price()).isEqualTo(110);
+            update(recovered, persistence, "PaMi", 120);
+        }
+
+        var again = newStore();
+        try (var _ = open(again, directory)) {
+            assertThat(again.get(new IDFlight("PaMi")).price().price()).isEqualTo(120);
+        }
+    }
+}
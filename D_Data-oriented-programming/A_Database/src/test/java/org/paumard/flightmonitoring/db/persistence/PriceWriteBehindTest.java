@@ -0,0 +1,91 @@
+package org.paumard.flightmonitoring.db.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PriceWriteBehindTest {
+
+    private final Map<String, Integer> written = new HashMap<>();
+    private int writes;
+
+    private final PriceBatchWriter writer = batch -> {
+        writes++;
+        for (int i = 0; i < batch.size(); i++) {
+            written.put(batch.flightId(i), batch.price(i));
+        }
+    };
+
+    private static Flight newFlight(String id) {
+        return new Flight(new IDFlight(id), new City("Paris"), new City("Miami"), new Price(100), new Plane("Airbus A350"));
+    }
+
+    @Test
+    public void coalesces_ticks_into_the_latest_price() throws Exception {
+        try (var writeBehind = new PriceWriteBehind(writer, Duration.ofHours(1), 16)) {
+            var flight = newFlight("PaMi");
+            for (int price = 0; price < 1_000; price++) {
+                flight.updatePrice(new Price(price));
+                writeBehind.markDirty(flight);
+            }
+            writeBehind.flush();
+
+            assertThat(written).isEqualTo(Map.of("PaMi", 999));
+            assertThat(writeBehind.flushedPrices()).isEqualTo(1L);
+            assertThat(writeBehind.lastFlushLag().isZero()).isFalse();
+        }
+    }
+
+    @Test
+    public void flushes_in_batches_of_the_configured_size() throws Exception {
+        try (var writeBehind = new PriceWriteBehind(writer, Duration.ofHours(1), 16)) {
+            for (int i = 0; i < 5_000; i++) {
+                var flight = newFlight("PaMi" + i);
+                flight.updatePrice(new Price(i));
+                writeBehind.markDirty(flight);
+            }
+            writeBehind.flush();
+            writeBehind.flush();
+
+            assertThat(written.size()).isEqualTo(5_000);
+            assertThat(written.get("PaMi4321")).isEqualTo(4321);
+            assertThat(writes).isEqualTo(313);
+            assertThat(writeBehind.flushedBatches()).isEqualTo(313L);
+        }
+    }
+
+    @Test
+    public void a_failed_write_is_retried_by_the_next_flush() throws Exception {
+        var failures = new int[]{1};
+        PriceBatchWriter failing = batch -> {
+            if (failures[0]-- > 0) {
+                throw new IOException("Disk full");
+            }
+            writer.write(batch);
+        };
+        try (var writeBehind = new PriceWriteBehind(failing, Duration.ofHours(1), 16)) {
+            for (int i = 0; i < 100; i++) {
+                var flight = newFlight("PaMi" + i);
+                flight.updatePrice(new Price(i));
+                writeBehind.markDirty(flight);
+            }
+
+            assertThatThrownBy(writeBehind::flush).isInstanceOf(IOException.class);
+            assertThat(written).isEmpty();
+            assertThat(writeBehind.failedFlushes()).isEqualTo(1L);
+            assertThat(writeBehind.lastFailure().isPresent()).isTrue();
+
+            writeBehind.flush();
+
+            assertThat(written.size()).isEqualTo(100);
+            assertThat(written.get("PaMi42")).isEqualTo(42);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.paumard.flightmonitoring.db.route;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RouteGraphTest {
+
+    private final City paris = new City("Paris");
+    private final City london = new City("London");
+    private final City newYork = new City("New York");
+    private final City miami = new City("Miami");
+
+    private final RouteGraph graph = new RouteGraph(Map.of("Pa", paris, "Lo", london, "NY", newYork, "Mi", miami));
+
+    private Flight flight(String id, City from, City to, int price) {
+        var flight = new Flight(new IDFlight(id), from, to, new Price(price), new Plane("Airbus A350"));
+        graph.addFlight(flight);
+        return flight;
+    }
+
+    private void updatePrice(Flight flight, int price) {
+        int oldPrice = flight.price().price();
+        flight.updatePrice(new Price(price));
+        graph.onPriceChanged(flight, oldPrice, price);
+    }
+
+    @Test
+    public void finds_the_cheapest_itinerary_within_the_connection_limit() {
+        var paMi = flight("PaMi", paris, miami, 300);
+        var paLo = flight("PaLo", paris, london, 50);
+        var loNY = flight("LoNY", london, newYork, 100);
+        var nyMi = flight("NYMi", newYork, miami, 60);
+        var loMi = flight("LoMi", london, miami, 200);
+
+        assertThat(graph.cheapest("Pa", "Mi", 0).orElseThrow().legs()).containsExactly(paMi);
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paLo, loMi);
+        assertThat(graph.cheapest("Pa", "Mi", 2).orElseThrow().legs()).containsExactly(paLo, loNY, nyMi);
+        assertThat(graph.cheapest("Pa", "Mi", 2).orElseThrow().price()).isEqualTo(210);
+        assertThat(graph.cheapest("Mi", "Pa", 3)).isEmpty();
+    }
+
+    @Test
+    public void price_increase_on_a_cached_leg_invalidates_the_itinerary() {
+        var paMi = flight("PaMi", paris, miami, 300);
+        var paLo = flight("PaLo", paris, london, 50);
+        var loMi = flight("LoMi", london, miami, 200);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paLo, loMi);
+
+        updatePrice(loMi, 400);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paMi);
+    }
+
+    @Test
+    public void price_decrease_on_another_leg_invalidates_the_itinerary() {
+        var paMi = flight("PaMi", paris, miami, 300);
+        var paLo = flight("PaLo", paris, london, 50);
+        var loMi = flight("LoMi", london, miami, 400);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paMi);
+
+        updatePrice(loMi, 100);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paLo, loMi);
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().price()).isEqualTo(150);
+    }
+
+    @Test
+    public void connection_limit_is_clamped_to_the_number_of_cities() {
+        var paLo = flight("PaLo", paris, london, 50);
+        var loNY = flight("LoNY", london, newYork, 100);
+        var nyMi = flight("NYMi", newYork, miami, 60);
+
+        assertThat(graph.cheapest("Pa", "Mi", Integer.MAX_VALUE).orElseThrow().legs()).containsExactly(paLo, loNY, nyMi);
+        assertThat(graph.cheapest("Pa", "Mi", 1 << 20).orElseThrow().price()).isEqualTo(210);
+    }
+
+    @Test
+    public void flight_added_after_a_query_is_used_by_the_next_one() {
+        var paMi = flight("PaMi", paris, miami, 300);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paMi);
+
+        var paLo = flight("PaLo", paris, london, 50);
+        var loMi = flight("LoMi", london, miami, 100);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paLo, loMi);
+
+        graph.removeFlight(loMi);
+
+        assertThat(graph.cheapest("Pa", "Mi", 1).orElseThrow().legs()).containsExactly(paMi);
+    }
+}
@@ -0,0 +1,67 @@
+package org.paumard.flightmonitoring.pricemonitoring;
+
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightConsumer;
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An immutable open addressing table from the ASCII bytes of a flight id to its consumer,
+ * so that an id read from a buffer is resolved without building a String.
+ */
+final class ConsumerIndex {
+
+    private final byte[][] keys;
+    private final FlightConsumer[] consumers;
+    private final int mask;
+
+    ConsumerIndex(FlightID[] flightIDs, FlightConsumer[] consumers) {
+        int capacity = Integer.highestOneBit(Math.max(2, flightIDs.length * 2) - 1) << 1;
+        this.keys = new byte[capacity][];
+        this.consumers = new FlightConsumer[capacity];
+        this.mask = capacity - 1;
+        for (int index = 0; index < flightIDs.length; index++) {
+            var key = flightIDs[index].flightId().getBytes(StandardCharsets.US_ASCII);
+            int slot = hash(ByteBuffer.wrap(key), 0, key.length) & mask;
+            while (keys[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            this.consumers[slot] = consumers[index];
+        }
+    }
+
+    FlightConsumer get(ByteBuffer buffer, int offset, int length) {
+        int slot = hash(buffer, offset, length) & mask;
+        byte[] key;
+        while ((key = keys[slot]) != null) {
+            if (matches(key, buffer, offset, length)) {
+                return consumers[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    private static boolean matches(byte[] key, ByteBuffer buffer, int offset, int length) {
+        if (key.length != length) {
+            return false;
+        }
+        for (int index = 0; index < length; index++) {
+            if (key[index] != buffer.get(offset + index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int hash(ByteBuffer buffer, int offset, int length) {
+        int hash = 0x811c9dc5;
+        for (int index = 0; index < length; index++) {
+            hash ^= buffer.get(offset + index);
+            hash *= 0x01000193;
+        }
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -1,36 +1,186 @@
 package org.paumard.flightmonitoring.pricemonitoring;
 
+import org.paumard.flightmonitoring.metrics.Counter;
+import org.paumard.flightmonitoring.metrics.Histogram;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+import org.paumard.flightmonitoring.metrics.SampledLog;
+import org.paumard.flightmonitoring.pricemonitoring.event.ConsumerDeliveryEvent;
+import org.paumard.flightmonitoring.pricemonitoring.event.PriceTickEvent;
 import org.paumard.flightmonitoring.pricemonitoring.model.FlightConsumer;
 import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
-import org.paumard.flightmonitoring.pricemonitoring.model.FlightPrice;
 
-import java.util.HashMap;
+import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 public class FlightPriceMonitoringService {
 
-    private static final Map<FlightID, FlightConsumer> registry = new HashMap<>();
+    private static final Map<FlightID, FlightConsumer> registry = new ConcurrentHashMap<>();
+    private static volatile Subscribers subscribers = new Subscribers(new FlightID[0], new FlightConsumer[0]);
+    private static volatile ConsumerIndex consumerIndex = new ConsumerIndex(new FlightID[0], new FlightConsumer[0]);
+    private static volatile boolean consumersChanged;
+    private static ScheduledExecutorService priceExecutor;
+    private static final Random random = new Random(314L);
+    private static final GracePeriod deliveries = new GracePeriod();
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Counter follows = metrics.counter("price.follows");
+    private static final Counter unfollows = metrics.counter("price.unfollows");
+    private static final Counter ticks = metrics.counter("price.ticks");
+    private static final Histogram tickDuration = metrics.histogram("price.tick.duration-ns");
+    private static final SampledLog followLog = new SampledLog();
+
+    static {
+        metrics.gauge("price.followed", registry::size);
+    }
 
     public static FlightPriceMonitoringService getInstance() {
         return new FlightPriceMonitoringService();
     }
 
     public void followPrice(FlightID flightID, FlightConsumer consumer) {
-        System.out.println("Monitoring the price for " + flightID);
-        registry.put(flightID, consumer);
+        followLog.log("Monitoring the price for ", flightID);
+        follows.increment();
+        synchronized (registry) {
+            registry.put(flightID, consumer);
+            consumersChanged = true;
+        }
+    }
+
+    public void unfollowPrice(FlightID flightID) {
+        followLog.log("No longer monitoring the price for ", flightID);
+        synchronized (registry) {
+            if (registry.remove(flightID) == null) {
+                return;
+            }
+            unfollows.increment();
+            consumersChanged = true;
+        }
+        // once this returns, no tick can still be calling the removed consumer, unless called from a consumer
+        deliveries.await();
+    }
+
+    public boolean isFollowing(FlightID flightID) {
+        return registry.containsKey(flightID);
+    }
+
+    public int followedFlights() {
+        return registry.size();
+    }
+
+    /**
+     * Delivers a price pushed from outside, for the flight whose ASCII id is stored
+     * in buffer at [offset, offset + length). Returns false if that flight is not followed.
+     */
+    public boolean updatePrice(ByteBuffer buffer, int offset, int length, int price) {
+        int parity = deliveries.enter();
+        try {
+            var index = consumersChanged ? refreshConsumerIndex() : consumerIndex;
+            var consumer = index.get(buffer, offset, length);
+            if (consumer == null) {
+                return false;
+            }
+            consumer.updatePrice(price);
+            return true;
+        } finally {
+            deliveries.exit(parity);
+        }
+    }
+
+    private static ConsumerIndex refreshConsumerIndex() {
+        synchronized (registry) {
+            refreshSubscribers();
+            return consumerIndex;
+        }
+    }
+
+    private record Subscribers(FlightID[] flightIDs, FlightConsumer[] consumers) {
+    }
+
+    public void tick() {
+        int parity = deliveries.enter();
+        long start = System.nanoTime();
+        try {
+            var subscribers = consumersChanged ? refreshSubscribers() : FlightPriceMonitoringService.subscribers;
+            if (PriceTickEvent.enabled() || ConsumerDeliveryEvent.enabled()) {
+                recordedTick(subscribers);
+            } else {
+                for (var flightConsumer : subscribers.consumers()) {
+                    flightConsumer.updatePrice(random.nextInt(80, 120));
+                }
+            }
+        } finally {
+            tickDuration.record(System.nanoTime() - start);
+            ticks.increment();
+            deliveries.exit(parity);
+        }
+    }
+
+    private static void recordedTick(Subscribers subscribers) {
+        var tickEvent = new PriceTickEvent();
+        tickEvent.begin();
+        var consumers = subscribers.consumers();
+        boolean recordDeliveries = ConsumerDeliveryEvent.enabled();
+        for (int index = 0; index < consumers.length; index++) {
+            int price = random.nextInt(80, 120);
+            if (recordDeliveries) {
+                var deliveryEvent = new ConsumerDeliveryEvent();
+                deliveryEvent.begin();
+                consumers[index].updatePrice(price);
+                deliveryEvent.end();
+                if (deliveryEvent.shouldCommit()) {
+                    deliveryEvent.flightId = subscribers.flightIDs()[index].flightId();
+                    deliveryEvent.price = price;
+                    deliveryEvent.commit();
+                }
+            } else {
+                consumers[index].updatePrice(price);
+            }
+        }
+        tickEvent.flightsUpdated = consumers.length;
+        tickEvent.commit();
+    }
+
+    private static Subscribers refreshSubscribers() {
+        synchronized (registry) {
+            if (consumersChanged) {
+                var flightIDs = new FlightID[registry.size()];
+                var consumers = new FlightConsumer[flightIDs.length];
+                int index = 0;
+                for (var entry : registry.entrySet()) {
+                    flightIDs[index] = entry.getKey();
+                    consumers[index++] = entry.getValue();
+                }
+                subscribers = new Subscribers(flightIDs, consumers);
+                consumerIndex = new ConsumerIndex(flightIDs, consumers);
+                consumersChanged = false;
+            }
+            return subscribers;
+        }
     }
 
     public void updatePrices() {
-        var random = new Random(314L);
-        var executor = Executors.newScheduledThreadPool(1);
-        Runnable task = () -> {
-            for (var flightConsumer : registry.values()) {
-                flightConsumer.updateFlight(new FlightPrice(random.nextInt(80, 120)));
+        synchronized (FlightPriceMonitoringService.class) {
+            if (priceExecutor == null) {
+                priceExecutor = Executors.newScheduledThreadPool(1);
+                priceExecutor.scheduleAtFixedRate(this::tick, 0, 500, TimeUnit.MILLISECONDS);
             }
-        };
-        executor.scheduleAtFixedRate(task, 0, 500, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void stopUpdatingPrices() throws InterruptedException {
+        ScheduledExecutorService executor;
+        synchronized (FlightPriceMonitoringService.class) {
+            executor = priceExecutor;
+            priceExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,54 @@
+package org.paumard.flightmonitoring.pricemonitoring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lets a writer wait for the deliveries that may still call a consumer it removed.
+ * A delivery counts itself in one of two counters, picked by the parity of the epoch.
+ * The writer flips the epoch and waits for the other counter to drain, twice, so that it
+ * also waits for a delivery that read the epoch before the first flip. A delivery started
+ * after that sees the removal, and a delivery finishing never stands for another one.
+ */
+final class GracePeriod {
+
+    private final AtomicLong epoch = new AtomicLong();
+    private final AtomicLong[] active = {new AtomicLong(), new AtomicLong()};
+    private final ThreadLocal<int[]> depth = ThreadLocal.withInitial(() -> new int[1]);
+    private final Object writerLock = new Object();
+
+    int enter() {
+        depth.get()[0]++;
+        int parity = (int) (epoch.get() & 1L);
+        active[parity].incrementAndGet();
+        return parity;
+    }
+
+    void exit(int parity) {
+        active[parity].decrementAndGet();
+        depth.get()[0]--;
+    }
+
+    boolean inDelivery() {
+        return depth.get()[0] > 0;
+    }
+
+    /**
+     * Returns once every delivery started before the call is done. Called from a delivery,
+     * it returns at once: waiting for the deliveries of the other threads could deadlock
+     * with a consumer of another thread doing the same.
+     */
+    void await() {
+        if (inDelivery()) {
+            return;
+        }
+        synchronized (writerLock) {
+            for (int flip = 0; flip < 2; flip++) {
+                int parity = (int) (epoch.getAndIncrement() & 1L);
+                while (active[parity].get() != 0L) {
+                    LockSupport.parkNanos(10_000L);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.paumard.flightmonitoring.pricemonitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.paumard.flightmonitoring.ConsumerDelivery")
+@Label("Consumer Delivery")
+@Description("A price delivered to the consumer of one followed flight")
+@Category({"Flight Monitoring", "Price Monitoring"})
+@Enabled(false)
+@Threshold("100 us")
+@StackTrace(false)
+public class ConsumerDeliveryEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(ConsumerDeliveryEvent.class);
+
+    // one event per flight and per tick: off by default, and only slow deliveries are kept
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Flight ID")
+    public String flightId;
+
+    @Label("Price")
+    public int price;
+}
@@ -0,0 +1,29 @@
+package org.paumard.flightmonitoring.pricemonitoring.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.paumard.flightmonitoring.PriceTick")
+@Label("Price Tick")
+@Description("One round of price updates delivered to every followed flight")
+@Category({"Flight Monitoring", "Price Monitoring"})
+@Threshold("1 ms")
+@StackTrace(false)
+public class PriceTickEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(PriceTickEvent.class);
+
+    // one event per tick: only the ticks slow enough to delay the next one are kept
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Flights Updated")
+    public int flightsUpdated;
+}
@@ -0,0 +1,71 @@
+package org.paumard.flightmonitoring.pricemonitoring.feed;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * A blocking stand-in for the upstream process: frames are appended to a direct buffer,
+ * which is written to the server when it is full or flushed.
+ */
+public class PriceFeedClient implements AutoCloseable {
+
+    private final SocketChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(PriceFeedServer.BUFFER_SIZE);
+
+    public PriceFeedClient(InetSocketAddress address) throws IOException {
+        this.channel = SocketChannel.open(address);
+        channel.socket().setTcpNoDelay(true);
+    }
+
+    public static int frameSize(String flightId) {
+        return 1 + flightId.length() + Integer.BYTES;
+    }
+
+    public static void encode(ByteBuffer buffer, String flightId, int price) {
+        if (flightId.isEmpty() || flightId.length() > 0xFF) {
+            throw new IllegalArgumentException("A flight id should have between 1 and 255 characters: " + flightId);
+        }
+        // US-ASCII, one byte per character: checked before anything is written to the buffer
+        for (int index = 0; index < flightId.length(); index++) {
+            if (flightId.charAt(index) > 0x7F) {
+                throw new IllegalArgumentException("A flight id should be US-ASCII: " + flightId);
+            }
+        }
+        buffer.put((byte) flightId.length());
+        for (int index = 0; index < flightId.length(); index++) {
+            buffer.put((byte) flightId.charAt(index));
+        }
+        buffer.putInt(price);
+    }
+
+    public void send(String flightId, int price) throws IOException {
+        if (buffer.remaining() < frameSize(flightId)) {
+            flush();
+        }
+        encode(buffer, flightId, price);
+    }
+
+    // writes frames that were encoded up front, the way the benchmark replays them
+    public void send(ByteBuffer frames) throws IOException {
+        flush();
+        while (frames.hasRemaining()) {
+            channel.write(frames);
+        }
+    }
+
+    public void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.close();
+    }
+}
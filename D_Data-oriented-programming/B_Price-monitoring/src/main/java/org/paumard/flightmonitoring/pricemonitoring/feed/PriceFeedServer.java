@@ -0,0 +1,198 @@
+package org.paumard.flightmonitoring.pricemonitoring.feed;
+
+import org.paumard.flightmonitoring.metrics.Counter;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.function.Consumer;
+
+/**
+ * Accepts price feeds on a single selector thread. A feed is a stream of frames:
+ * an unsigned byte length, the ASCII flight id, then the price as a big endian int.
+ * Frames are decoded in place from a direct buffer per connection, and a partial
+ * frame at the end of a read is kept for the next one. A consumer that throws loses
+ * its frame, and nothing else: the selector thread is the only one reading the feeds.
+ * Each server counts its own frames, and adds them to the counters of the registry.
+ */
+public class PriceFeedServer implements AutoCloseable {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Counter allReceivedFrames = metrics.counter("price.feed.frames");
+    private static final Counter allUnknownFlights = metrics.counter("price.feed.unknown-flights");
+    private static final Counter allMalformedDisconnects = metrics.counter("price.feed.malformed-disconnects");
+    private static final Counter allFailedFrames = metrics.counter("price.feed.failed-frames");
+
+    private final Counter receivedFrames = new Counter();
+    private final Counter unknownFlights = new Counter();
+    private final Counter malformedDisconnects = new Counter();
+    private final Counter failedFrames = new Counter();
+
+    private final FlightPriceMonitoringService priceMonitoringService;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread selectorThread;
+    private final Consumer<SelectionKey> processor = this::process;
+    private volatile boolean closed;
+
+    private PriceFeedServer(FlightPriceMonitoringService priceMonitoringService, InetSocketAddress address) throws IOException {
+        this.priceMonitoringService = priceMonitoringService;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        this.selectorThread = Thread.ofPlatform().name("price-feed").daemon().start(this::selectLoop);
+    }
+
+    public static PriceFeedServer start(FlightPriceMonitoringService priceMonitoringService,
+                                        InetSocketAddress address) throws IOException {
+        return new PriceFeedServer(priceMonitoringService, address);
+    }
+
+    public InetSocketAddress address() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    private void selectLoop() {
+        try {
+            while (!closed) {
+                selector.select(processor);
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (!closed) {
+                System.err.println("Price feed stopped: " + e);
+            }
+        }
+    }
+
+    private void process(SelectionKey key) {
+        try {
+            if (key.isAcceptable()) {
+                accept();
+            } else if (key.isReadable()) {
+                read(key);
+            }
+        } catch (IOException e) {
+            disconnect(key);
+        } catch (RuntimeException e) {
+            System.err.println("Price feed connection dropped: " + e);
+            disconnect(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        var channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocateDirect(BUFFER_SIZE));
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        var channel = (SocketChannel) key.channel();
+        var buffer = (ByteBuffer) key.attachment();
+        if (channel.read(buffer) < 0) {
+            disconnect(key);
+            return;
+        }
+        buffer.flip();
+        if (!decode(buffer)) {
+            malformedDisconnects.increment();
+            allMalformedDisconnects.increment();
+            disconnect(key);
+            return;
+        }
+        buffer.compact();
+    }
+
+    // returns false on a malformed frame, after which the rest of the stream cannot be trusted
+    private boolean decode(ByteBuffer buffer) {
+        int position = buffer.position();
+        int limit = buffer.limit();
+        long frames = 0L;
+        long unknown = 0L;
+        long failed = 0L;
+        while (position < limit) {
+            int length = Byte.toUnsignedInt(buffer.get(position));
+            if (length == 0) {
+                return false;
+            }
+            int frameSize = 1 + length + Integer.BYTES;
+            if (limit - position < frameSize) {
+                break;
+            }
+            int price = buffer.getInt(position + 1 + length);
+            try {
+                if (!priceMonitoringService.updatePrice(buffer, position + 1, length, price)) {
+                    unknown++;
+                }
+            } catch (RuntimeException e) {
+                failed++;
+            }
+            frames++;
+            position += frameSize;
+        }
+        buffer.position(position);
+        receivedFrames.add(frames);
+        allReceivedFrames.add(frames);
+        unknownFlights.add(unknown);
+        allUnknownFlights.add(unknown);
+        if (failed > 0L) {
+            failedFrames.add(failed);
+            allFailedFrames.add(failed);
+        }
+        return true;
+    }
+
+    private static void disconnect(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+
+    public long receivedFrames() {
+        return receivedFrames.count();
+    }
+
+    public long unknownFlights() {
+        return unknownFlights.count();
+    }
+
+    public long malformedDisconnects() {
+        return malformedDisconnects.count();
+    }
+
+    public long failedFrames() {
+        return failedFrames.count();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            selectorThread.join();
+        } catch (InterruptedException e) {
+            // the channels are closed anyway, which stops the selector thread
+            Thread.currentThread().interrupt();
+        }
+        for (var key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+}
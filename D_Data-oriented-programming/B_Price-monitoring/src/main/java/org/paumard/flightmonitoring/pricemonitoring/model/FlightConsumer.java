@@ -2,5 +2,9 @@ package org.paumard.flightmonitoring.pricemonitoring.model;
 
 public interface FlightConsumer {
 
-    void updateFlight(FlightPrice price);
+    void updatePrice(int price);
+
+    default void updateFlight(FlightPrice price) {
+        updatePrice(price.price());
+    }
 }
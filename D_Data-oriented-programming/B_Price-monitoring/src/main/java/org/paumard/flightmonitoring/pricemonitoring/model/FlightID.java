@@ -1,12 +1,26 @@
 package org.paumard.flightmonitoring.pricemonitoring.model;
 
+import org.paumard.flightmonitoring.intern.WeakInterner;
+
 public class FlightID {
+    // weakly held: the canonical instance of an id that nothing refers to anymore is released
+    private static final WeakInterner<FlightID> CANONICAL = new WeakInterner<>(FlightID::new);
+
     private String flightId;
 
     public FlightID(String id) {
         this.flightId = id;
     }
 
+    public static FlightID of(String id) {
+        return CANONICAL.intern(id);
+    }
+
+    // the ids released by the GC are only removed by a later intern
+    public static int canonicalCount() {
+        return CANONICAL.size();
+    }
+
     public String flightId() {
         return this.flightId;
     }
@@ -0,0 +1,74 @@
+package org.paumard.flightmonitoring.pricemonitoring;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightPriceMonitoringServiceTest {
+
+    private final FlightPriceMonitoringService priceMonitoringService = FlightPriceMonitoringService.getInstance();
+
+    @Test
+    public void unfollow_waits_for_a_tick_still_running_while_later_deliveries_finish() throws Exception {
+        var slow = FlightID.of("PaMi-grace-slow");
+        var fast = FlightID.of("PaMi-grace-fast");
+        var delivering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        priceMonitoringService.followPrice(slow, _ -> {
+            delivering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        priceMonitoringService.followPrice(fast, _ -> {
+        });
+        var running = new AtomicBoolean(true);
+
+        try (var executor = Executors.newFixedThreadPool(2)) {
+            var tick = executor.submit(priceMonitoringService::tick);
+            delivering.await();
+            var key = ByteBuffer.wrap(fast.flightId().getBytes(StandardCharsets.US_ASCII));
+            var frames = executor.submit(() -> {
+                long count = 0L;
+                while (running.get()) {
+                    priceMonitoringService.updatePrice(key, 0, key.limit(), 100);
+                    count++;
+                }
+                return count;
+            });
+            var unfollowed = CompletableFuture.runAsync(() -> priceMonitoringService.unfollowPrice(slow));
+            Thread.sleep(100);
+
+            assertThat(unfollowed.isDone()).isFalse();
+
+            release.countDown();
+            unfollowed.get(5, TimeUnit.SECONDS);
+            running.set(false);
+            tick.get(5, TimeUnit.SECONDS);
+            assertThat(frames.get(5, TimeUnit.SECONDS)).isPositive();
+        } finally {
+            priceMonitoringService.unfollowPrice(fast);
+        }
+    }
+
+    @Test
+    public void a_consumer_can_unfollow_its_own_flight() {
+        var flightID = FlightID.of("PaMi-grace-self");
+        priceMonitoringService.followPrice(flightID, _ -> priceMonitoringService.unfollowPrice(flightID));
+
+        priceMonitoringService.tick();
+
+        assertThat(priceMonitoringService.isFollowing(flightID)).isFalse();
+    }
+}
@@ -0,0 +1,201 @@
+package org.paumard.flightmonitoring.pricemonitoring.feed;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class PriceFeedServerTest {
+
+    private static final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final FlightPriceMonitoringService priceMonitoringService = FlightPriceMonitoringService.getInstance();
+    private final List<FlightID> flights = IntStream.range(0, 100).mapToObj(i -> FlightID.of("PaMi-feed-" + i)).toList();
+    private final Map<String, Integer> prices = new ConcurrentHashMap<>();
+    private final AtomicLong deliveries = new AtomicLong();
+    private final PriceFeedServer server;
+
+    public PriceFeedServerTest() throws Exception {
+        for (var flight : flights) {
+            priceMonitoringService.followPrice(flight, price -> {
+                prices.put(flight.flightId(), price);
+                deliveries.incrementAndGet();
+            });
+        }
+        server = PriceFeedServer.start(priceMonitoringService, new InetSocketAddress("localhost", 0));
+    }
+
+    @AfterEach
+    public void stop() throws Exception {
+        server.close();
+        flights.forEach(priceMonitoringService::unfollowPrice);
+    }
+
+    private void awaitDeliveries(long count) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (deliveries.get() < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Only " + deliveries.get() + " deliveries out of " + count);
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void decodes_frames_split_across_reads() throws Exception {
+        var frames = ByteBuffer.allocate(flights.size() * 32);
+        for (var flight : flights) {
+            PriceFeedClient.encode(frames, flight.flightId(), 1_000 + flights.indexOf(flight));
+        }
+        frames.flip();
+
+        try (var channel = SocketChannel.open(server.address())) {
+            int chunk = 1;
+            while (frames.hasRemaining()) {
+                var slice = frames.slice(frames.position(), Math.min(chunk, frames.remaining()));
+                while (slice.hasRemaining()) {
+                    channel.write(slice);
+                }
+                frames.position(frames.position() + slice.limit());
+                chunk = chunk % 7 + 1;
+                Thread.sleep(0, 100_000);
+            }
+            awaitDeliveries(flights.size());
+        }
+
+        for (int index = 0; index < flights.size(); index++) {
+            assertThat(prices.get(flights.get(index).flightId())).isEqualTo(1_000 + index);
+        }
+    }
+
+    @Test
+    public void skips_unknown_flights_and_drops_malformed_streams() throws Exception {
+        try (var client = new PriceFeedClient(server.address())) {
+            client.send("LoNY-not-followed", 1);
+            client.send(flights.getFirst().flightId(), 42);
+            client.flush();
+            awaitDeliveries(1);
+
+            client.send(ByteBuffer.wrap(new byte[]{0, 0, 0, 0, 1}));
+            client.send(flights.getLast().flightId(), 43);
+            client.flush();
+        } catch (java.io.IOException e) {
+            // the server may already have closed the connection
+        }
+        Thread.sleep(200);
+
+        assertThat(prices.get(flights.getFirst().flightId())).isEqualTo(42);
+        assertThat(prices.containsKey(flights.getLast().flightId())).isFalse();
+        assertThat(server.unknownFlights()).isEqualTo(1L);
+        assertThat(server.malformedDisconnects()).isEqualTo(1L);
+    }
+
+    @Test
+    public void rejects_flight_ids_that_are_not_ascii() {
+        var buffer = ByteBuffer.allocate(64);
+
+        assertThatThrownBy(() -> PriceFeedClient.encode(buffer, "PaMi-\u00e9t\u00e9", 1))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    public void decoding_does_not_allocate() throws Exception {
+        var feedThread = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("price-feed"))
+                .filter(Thread::isAlive)
+                .findFirst().orElseThrow();
+        var frames = ByteBuffer.allocateDirect(PriceFeedServer.BUFFER_SIZE);
+        int framesPerBuffer = 0;
+        while (frames.remaining() >= PriceFeedClient.frameSize(flights.getLast().flightId())) {
+            var flight = flights.get(framesPerBuffer % flights.size());
+            PriceFeedClient.encode(frames, flight.flightId(), 80 + framesPerBuffer % 40);
+            framesPerBuffer++;
+        }
+        frames.flip();
+
+        try (var client = new PriceFeedClient(server.address())) {
+            for (int i = 0; i < 200; i++) {
+                client.send(frames.duplicate());
+            }
+            awaitDeliveries(200L * framesPerBuffer);
+
+            long before = threadMXBean.getThreadAllocatedBytes(feedThread.threadId());
+            for (int i = 0; i < 200; i++) {
+                client.send(frames.duplicate());
+            }
+            awaitDeliveries(400L * framesPerBuffer);
+            long allocated = threadMXBean.getThreadAllocatedBytes(feedThread.threadId()) - before;
+
+            assertThat(allocated / (200L * framesPerBuffer)).isZero();
+        }
+    }
+
+    @Test
+    public void a_failing_consumer_only_loses_its_frame() throws Exception {
+        var failing = FlightID.of("PaMi-feed-failing");
+        priceMonitoringService.followPrice(failing, _ -> {
+            throw new IllegalStateException("Consumer failure");
+        });
+        long failedBefore = server.failedFrames();
+        try (var client = new PriceFeedClient(server.address())) {
+            client.send(failing.flightId(), 1);
+            client.send(flights.getFirst().flightId(), 44);
+            client.flush();
+            awaitDeliveries(1);
+
+            client.send(flights.getLast().flightId(), 45);
+            client.flush();
+            awaitDeliveries(2);
+        } finally {
+            priceMonitoringService.unfollowPrice(failing);
+        }
+
+        assertThat(server.failedFrames() - failedBefore).isEqualTo(1L);
+        assertThat(prices.get(flights.getLast().flightId())).isEqualTo(45);
+    }
+
+    @Test
+    public void unfollow_waits_for_the_frame_being_delivered() throws Exception {
+        var slow = FlightID.of("PaMi-feed-slow");
+        var delivering = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        priceMonitoringService.followPrice(slow, _ -> {
+            delivering.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try (var client = new PriceFeedClient(server.address())) {
+            client.send(slow.flightId(), 1);
+            client.flush();
+            delivering.await();
+
+            var unfollowed = CompletableFuture.runAsync(() -> priceMonitoringService.unfollowPrice(slow));
+            Thread.sleep(100);
+            assertThat(unfollowed.isDone()).isFalse();
+
+            release.countDown();
+            unfollowed.get(5, TimeUnit.SECONDS);
+        }
+    }
+}
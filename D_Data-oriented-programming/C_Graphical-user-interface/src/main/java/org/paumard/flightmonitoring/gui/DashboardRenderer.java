@@ -0,0 +1,221 @@
+package org.paumard.flightmonitoring.gui;
+
+import org.paumard.flightmonitoring.db.model.City;
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A full screen ANSI dashboard. Each flight gets a cell the first time it is displayed,
+ * filling the screen column after column. The renderer keeps the price shown in each cell,
+ * and a frame only moves the cursor to the cells whose price changed and rewrites their price,
+ * so the bytes of a frame follow the number of changes, not the number of flights.
+ * The cell of a removed flight is blanked when the frame is flushed, then given to the next
+ * new flight. Flights that do not fit on the screen are not shown. Not thread-safe.
+ */
+public class DashboardRenderer implements FlightRenderer {
+
+    static final int PRICE_WIDTH = 7;
+
+    private static final byte ESCAPE = 0x1B;
+    private static final byte[] CLEAR_SCREEN = {ESCAPE, '[', '2', 'J', ESCAPE, '[', 'H'};
+
+    private static final class Cell {
+        private final int row;
+        private final int column;
+        private int price;
+
+        private Cell(int row, int column, int price) {
+            this.row = row;
+            this.column = column;
+            this.price = price;
+        }
+    }
+
+    private final WritableByteChannel out;
+    private final int rows;
+    private final int columns;
+    private final int cellWidth;
+    private final Map<String, Cell> cells = new HashMap<>();
+    private final ArrayDeque<Cell> freeCells = new ArrayDeque<>();
+    private final Set<String> removed = new HashSet<>();
+    private final ByteBuffer frame;
+    private int usedCells;
+    private boolean cleared;
+    private int flights;
+    private boolean moved;
+
+    public DashboardRenderer(WritableByteChannel out, int rows, int columns, int cellWidth) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("A dashboard should have at least one row and one column");
+        }
+        if (cellWidth <= PRICE_WIDTH + 1) {
+            throw new IllegalArgumentException("A cell should be wider than " + (PRICE_WIDTH + 1) + " characters");
+        }
+        this.out = out;
+        this.rows = rows;
+        this.columns = columns;
+        this.cellWidth = cellWidth;
+        // worst case: every cell is written in full in the same frame
+        this.frame = ByteBuffer.allocate(Math.max(4_096, CLEAR_SCREEN.length + rows * columns * (cellWidth + 16) + 16));
+    }
+
+    private void ensureSpace() throws IOException {
+        // a flight appended several times in one frame may outgrow the worst case
+        if (frame.remaining() < CLEAR_SCREEN.length + cellWidth + 32) {
+            write();
+        }
+    }
+
+    @Override
+    public void append(Flight flight) {
+        append(flight.id(), flight.from(), flight.to(), flight.price().price());
+    }
+
+    @Override
+    public void append(FlightSnapshot flight) {
+        append(flight.id(), flight.from(), flight.to(), flight.price().price());
+    }
+
+    private void append(IDFlight id, City from, City to, int price) {
+        try {
+            ensureSpace();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        var cell = cells.get(id.flightId());
+        if (cell == null) {
+            if (!freeCells.isEmpty()) {
+                cell = freeCells.pop();
+                cell.price = price;
+            } else if (usedCells < rows * columns) {
+                int index = usedCells++;
+                cell = new Cell(index % rows + 1, (index / rows) * cellWidth + 1, price);
+            } else {
+                return;
+            }
+            cells.put(id.flightId(), cell);
+            writeCell(cell, id, from, to);
+        } else if (cell.price == price) {
+            return;
+        } else {
+            cell.price = price;
+            moveTo(cell.row, cell.column + cellWidth - PRICE_WIDTH - 1);
+        }
+        putPrice(price);
+        flights++;
+    }
+
+    private void writeCell(Cell cell, IDFlight id, City from, City to) {
+        if (!cleared) {
+            frame.put(CLEAR_SCREEN);
+            cleared = true;
+        }
+        moveTo(cell.row, cell.column);
+        var label = (id.flightId() + " " + name(from) + "-" + name(to)).getBytes(StandardCharsets.UTF_8);
+        int labelWidth = cellWidth - PRICE_WIDTH - 1;
+        for (int index = 0; index < labelWidth; index++) {
+            frame.put(index < label.length ? label[index] : (byte) ' ');
+        }
+    }
+
+    private static String name(City city) {
+        return city == null ? "?" : city.name();
+    }
+
+    // the flight may still be appended to the frame being built, so its cell is released by the flush
+    @Override
+    public void remove(IDFlight id) {
+        removed.add(id.flightId());
+    }
+
+    private void releaseRemovedCells() throws IOException {
+        for (var flightId : removed) {
+            var cell = cells.remove(flightId);
+            if (cell != null) {
+                ensureSpace();
+                moveTo(cell.row, cell.column);
+                for (int index = 0; index < cellWidth - 1; index++) {
+                    frame.put((byte) ' ');
+                }
+                freeCells.add(cell);
+            }
+        }
+        removed.clear();
+    }
+
+    private void moveTo(int row, int column) {
+        moved = true;
+        frame.put(ESCAPE).put((byte) '[');
+        putDigits(row);
+        frame.put((byte) ';');
+        putDigits(column);
+        frame.put((byte) 'H');
+    }
+
+    // right aligned in PRICE_WIDTH characters, so that a shorter price erases a longer one
+    private void putPrice(int price) {
+        int digits = price < 0 ? 1 : 0;
+        for (long remaining = Math.abs((long) price); ; remaining /= 10) {
+            digits++;
+            if (remaining < 10) {
+                break;
+            }
+        }
+        for (int pad = digits; pad < PRICE_WIDTH; pad++) {
+            frame.put((byte) ' ');
+        }
+        if (price < 0) {
+            frame.put((byte) '-');
+        }
+        putDigits(Math.abs((long) price));
+    }
+
+    private void putDigits(long value) {
+        long divisor = 1;
+        while (value / divisor >= 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            frame.put((byte) ('0' + value / divisor % 10));
+        }
+    }
+
+    @Override
+    public int flights() {
+        return flights;
+    }
+
+    @Override
+    public int flush() throws IOException {
+        releaseRemovedCells();
+        if (moved) {
+            // parks the cursor below the dashboard
+            moveTo(rows + 1, 1);
+            moved = false;
+        }
+        flights = 0;
+        return write();
+    }
+
+    private int write() throws IOException {
+        frame.flip();
+        int bytes = frame.remaining();
+        while (frame.hasRemaining()) {
+            out.write(frame);
+        }
+        frame.clear();
+        return bytes;
+    }
+}
@@ -1,16 +1,142 @@
 package org.paumard.flightmonitoring.gui;
 
 import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.gui.sse.SseServer;
+import org.paumard.flightmonitoring.metrics.Counter;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
 public class FlightGUI {
 
+    private static final Counter displayedFlights = MetricsRegistry.getInstance().counter("gui.flights.displayed");
+    private static final Counter frameBytes = MetricsRegistry.getInstance().counter("gui.frame.bytes");
+    private static final ScreenMode screenMode = ScreenMode.fromSystemProperty();
+
+    // the frames of the SSE mode are dropped while its server is not started
+    private static final FlightRenderer NOT_STARTED = new FlightRenderer() {
+        @Override
+        public void append(Flight flight) {
+        }
+
+        @Override
+        public void append(FlightSnapshot flight) {
+        }
+
+        @Override
+        public int flights() {
+            return 0;
+        }
+
+        @Override
+        public int flush() {
+            return 0;
+        }
+    };
+
+    private static final Object frameLock = new Object();
+    private static FlightRenderer frameRenderer = createRenderer();
+    private static SseServer sseServer;
+
+    private static FlightRenderer createRenderer() {
+        var console = new FileOutputStream(FileDescriptor.out).getChannel();
+        return switch (screenMode) {
+            case LINES -> new FrameRenderer(console, 64 * 1024);
+            case DASHBOARD -> new DashboardRenderer(console,
+                    Integer.getInteger("flightmonitoring.gui.rows", 40),
+                    Integer.getInteger("flightmonitoring.gui.columns", 4),
+                    Integer.getInteger("flightmonitoring.gui.cell-width", 40));
+            case SSE -> NOT_STARTED;
+        };
+    }
+
+    private static SseServer startSseServer() {
+        var address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                Integer.getInteger("flightmonitoring.gui.sse.port", 8080));
+        try {
+            var server = SseServer.start(address);
+            System.out.println("Streaming prices on http://" + address.getHostString() + ":" + server.address().getPort() + "/");
+            return server;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
     public static FlightGUI getInstance() {
         return new FlightGUI();
     }
 
+    // starts the server of the SSE mode, the console modes have nothing to start
+    public void start() {
+        synchronized (frameLock) {
+            if (screenMode == ScreenMode.SSE && sseServer == null) {
+                sseServer = startSseServer();
+                frameRenderer = sseServer.renderer();
+            }
+        }
+    }
+
+    public void stop() {
+        synchronized (frameLock) {
+            if (sseServer != null) {
+                sseServer.close();
+                sseServer = null;
+                frameRenderer = NOT_STARTED;
+            }
+        }
+    }
+
+    // a frame of its own: to display several flights, add them to the frame, then display it once
     public void displayFlight(Flight flight) {
-        System.out.println(
-                "Flight from " + flight.from().name() + " to " + flight.to().name() +
-                ": price is now " + flight.price().price());
+        synchronized (frameLock) {
+            addToFrame(flight);
+            displayFrame();
+        }
+    }
+
+    public void displayFlight(FlightSnapshot flight) {
+        synchronized (frameLock) {
+            addToFrame(flight);
+            displayFrame();
+        }
+    }
+
+    public void addToFrame(Flight flight) {
+        synchronized (frameLock) {
+            frameRenderer.append(flight);
+        }
+    }
+
+    public void addToFrame(FlightSnapshot flight) {
+        synchronized (frameLock) {
+            frameRenderer.append(flight);
+        }
+    }
+
+    public void removeFlight(IDFlight id) {
+        synchronized (frameLock) {
+            frameRenderer.remove(id);
+        }
+    }
+
+    // the flights added since the last frame are written to the console at once
+    public int displayFrame() {
+        synchronized (frameLock) {
+            int flights = frameRenderer.flights();
+            try {
+                frameBytes.add(frameRenderer.flush());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            displayedFlights.add(flights);
+            return flights;
+        }
     }
 }
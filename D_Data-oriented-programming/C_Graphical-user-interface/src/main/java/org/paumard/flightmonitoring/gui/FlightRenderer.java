@@ -0,0 +1,22 @@
+package org.paumard.flightmonitoring.gui;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.io.IOException;
+
+public interface FlightRenderer {
+
+    void append(Flight flight);
+
+    void append(FlightSnapshot flight);
+
+    // the flight is no longer displayed, a renderer that keeps state per flight releases it
+    default void remove(IDFlight id) {
+    }
+
+    int flights();
+
+    int flush() throws IOException;
+}
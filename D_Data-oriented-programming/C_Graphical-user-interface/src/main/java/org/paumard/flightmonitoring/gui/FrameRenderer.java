@@ -0,0 +1,111 @@
+package org.paumard.flightmonitoring.gui;
+
+import org.paumard.flightmonitoring.db.model.City;
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Formats the flights of a display frame into one reusable buffer, then writes it to
+ * the channel in a single call. The "Flight from ... to ...: price is now " prefix is
+ * encoded once per route, and prices are written digit by digit, so a frame creates
+ * no String once every route has been seen. Not thread-safe.
+ */
+public class FrameRenderer implements FlightRenderer {
+
+    private final WritableByteChannel out;
+    private final Map<City, Map<City, byte[]>> prefixes = new HashMap<>();
+    private ByteBuffer frame;
+    private int flights;
+
+    public FrameRenderer(WritableByteChannel out, int initialCapacity) {
+        this.out = out;
+        this.frame = ByteBuffer.allocate(initialCapacity);
+    }
+
+    @Override
+    public void append(Flight flight) {
+        append(flight.from(), flight.to(), flight.price().price());
+    }
+
+    @Override
+    public void append(FlightSnapshot flight) {
+        append(flight.from(), flight.to(), flight.price().price());
+    }
+
+    private void append(City from, City to, int price) {
+        var prefix = prefix(from, to);
+        ensureCapacity(prefix.length + 12);
+        frame.put(prefix);
+        putInt(price);
+        frame.put((byte) '\n');
+        flights++;
+    }
+
+    private byte[] prefix(City from, City to) {
+        var prefixesFrom = prefixes.get(from);
+        if (prefixesFrom == null) {
+            prefixes.put(from, prefixesFrom = new HashMap<>());
+        }
+        var prefix = prefixesFrom.get(to);
+        if (prefix == null) {
+            prefix = ("Flight from " + name(from) + " to " + name(to) + ": price is now ").getBytes(StandardCharsets.UTF_8);
+            prefixesFrom.put(to, prefix);
+        }
+        return prefix;
+    }
+
+    private static String name(City city) {
+        return city == null ? "unknown" : city.name();
+    }
+
+    private void putInt(int value) {
+        if (value < 0) {
+            frame.put((byte) '-');
+        }
+        int start = frame.position();
+        // digits are written backwards from the units, then reversed in place
+        long remaining = Math.abs((long) value);
+        do {
+            frame.put((byte) ('0' + remaining % 10));
+            remaining /= 10;
+        } while (remaining != 0);
+        for (int left = start, right = frame.position() - 1; left < right; left++, right--) {
+            byte digit = frame.get(left);
+            frame.put(left, frame.get(right));
+            frame.put(right, digit);
+        }
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (frame.remaining() < bytes) {
+            var larger = ByteBuffer.allocate(Math.max(frame.capacity() * 2, frame.position() + bytes));
+            larger.put(frame.flip());
+            frame = larger;
+        }
+    }
+
+    @Override
+    public int flights() {
+        return flights;
+    }
+
+    // returns the number of bytes written, nothing is written for an empty frame
+    @Override
+    public int flush() throws IOException {
+        frame.flip();
+        int bytes = frame.remaining();
+        while (frame.hasRemaining()) {
+            out.write(frame);
+        }
+        frame.clear();
+        flights = 0;
+        return bytes;
+    }
+}
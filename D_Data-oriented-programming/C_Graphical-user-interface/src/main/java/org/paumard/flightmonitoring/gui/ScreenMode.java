@@ -0,0 +1,9 @@
+package org.paumard.flightmonitoring.gui;
+
+public enum ScreenMode {
+    LINES, DASHBOARD, SSE;
+
+    public static ScreenMode fromSystemProperty() {
+        return valueOf(System.getProperty("flightmonitoring.gui", LINES.name()).toUpperCase());
+    }
+}
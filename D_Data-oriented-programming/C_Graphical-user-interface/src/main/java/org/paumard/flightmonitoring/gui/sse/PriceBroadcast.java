@@ -0,0 +1,137 @@
+package org.paumard.flightmonitoring.gui.sse;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A chain of serialized events, shared by all the connected clients. Each client keeps
+ * a reference to the last event it has sent, and waits for the next one to be linked.
+ * Events that every client has sent become unreachable and are collected.
+ * The waits use a {@link ReentrantLock}, so that waiting virtual threads do not pin their carrier.
+ * A client stuck in a write would keep every later event reachable, so the publisher interrupts
+ * the subscribers that fall more than {@code maxLag} events behind: the interrupt closes the
+ * socket of the blocked write.
+ */
+final class PriceBroadcast {
+
+    static final class Event {
+        private final long sequence;
+        private final byte[] data;
+        private volatile Event next;
+
+        private Event(long sequence, byte[] data) {
+            this.sequence = sequence;
+            this.data = data;
+        }
+
+        long sequence() {
+            return sequence;
+        }
+
+        byte[] data() {
+            return data;
+        }
+    }
+
+    static final class Subscriber {
+        private final Thread thread = Thread.currentThread();
+        private volatile long sequence;
+        private volatile boolean dropped;
+
+        private Subscriber(long sequence) {
+            this.sequence = sequence;
+        }
+
+        void sent(Event event) {
+            sequence = event.sequence;
+        }
+
+        boolean isDropped() {
+            return dropped;
+        }
+    }
+
+    private final long maxLag;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private volatile Event latest = new Event(0L, new byte[0]);
+    private volatile boolean closed;
+
+    PriceBroadcast(long maxLag) {
+        this.maxLag = maxLag;
+    }
+
+    Event latest() {
+        return latest;
+    }
+
+    // the calling thread is interrupted if it falls too far behind the event it starts from
+    Subscriber subscribe(Event from) {
+        var subscriber = new Subscriber(from.sequence);
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    void unsubscribe(Subscriber subscriber) {
+        subscribers.remove(subscriber);
+    }
+
+    void publish(byte[] data) {
+        Event event;
+        lock.lock();
+        try {
+            event = new Event(latest.sequence + 1, data);
+            latest.next = event;
+            latest = event;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        dropLaggingSubscribers(event.sequence);
+    }
+
+    private void dropLaggingSubscribers(long sequence) {
+        for (var subscriber : subscribers) {
+            if (sequence - subscriber.sequence > maxLag && !subscriber.dropped) {
+                subscriber.dropped = true;
+                subscriber.thread.interrupt();
+            }
+        }
+    }
+
+    // returns null if nothing was published before the timeout, or if the broadcast is closed
+    Event awaitNext(Event after, long timeout, TimeUnit unit) throws InterruptedException {
+        var next = after.next;
+        if (next != null) {
+            return next;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while ((next = after.next) == null && !closed && nanos > 0L) {
+                nanos = published.awaitNanos(nanos);
+            }
+            return closed ? null : next;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    void close() {
+        lock.lock();
+        try {
+            closed = true;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.paumard.flightmonitoring.gui.sse;
+
+import org.paumard.flightmonitoring.db.model.City;
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.gui.FlightRenderer;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Turns a display frame into one server-sent event: each flight of the frame is a
+ * {@code data:} line holding a JSON object. The event is serialized once and published
+ * to the broadcast, where every connected client writes the same bytes.
+ * The last line of each flight is kept, to send the current prices to new clients.
+ * A removed flight is forgotten when the frame is flushed, and the event tells the pages
+ * to drop its row. Not thread-safe, except for {@link #snapshot()}.
+ */
+public class SseRenderer implements FlightRenderer {
+
+    static final byte[] EVENT_HEADER = "event: prices\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final PriceBroadcast broadcast;
+    private final Map<String, byte[]> lastLines = new ConcurrentHashMap<>();
+    private final List<byte[]> frame = new ArrayList<>();
+    private final Set<String> removed = new HashSet<>();
+    private final StringBuilder line = new StringBuilder(128);
+    private int frameBytes;
+
+    SseRenderer(PriceBroadcast broadcast) {
+        this.broadcast = broadcast;
+    }
+
+    @Override
+    public void append(Flight flight) {
+        append(flight.id(), flight.from(), flight.to(), flight.price().price());
+    }
+
+    @Override
+    public void append(FlightSnapshot flight) {
+        append(flight.id(), flight.from(), flight.to(), flight.price().price());
+    }
+
+    private void append(IDFlight id, City from, City to, int price) {
+        line.setLength(0);
+        line.append("data: {\"id\":");
+        appendString(id.flightId());
+        line.append(",\"from\":");
+        appendString(name(from));
+        line.append(",\"to\":");
+        appendString(name(to));
+        line.append(",\"price\":").append(price).append("}\n");
+        var bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+        lastLines.put(id.flightId(), bytes);
+        frame.add(bytes);
+        frameBytes += bytes.length;
+    }
+
+    // the flight may still be appended to the frame being built, so it is forgotten by the flush
+    @Override
+    public void remove(IDFlight id) {
+        removed.add(id.flightId());
+    }
+
+    private void appendRemovedFlights() {
+        for (var flightId : removed) {
+            if (lastLines.remove(flightId) != null) {
+                line.setLength(0);
+                line.append("data: {\"id\":");
+                appendString(flightId);
+                line.append(",\"removed\":true}\n");
+                var bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+                frame.add(bytes);
+                frameBytes += bytes.length;
+            }
+        }
+        removed.clear();
+    }
+
+    private void appendString(String value) {
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"', '\\' -> line.append('\\').append(c);
+                case '\n' -> line.append("\\n");
+                case '\r' -> line.append("\\r");
+                default -> {
+                    if (c < 0x20) {
+                        line.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        line.append(c);
+                    }
+                }
+            }
+        }
+        line.append('"');
+    }
+
+    private static String name(City city) {
+        return city == null ? "unknown" : city.name();
+    }
+
+    @Override
+    public int flights() {
+        return frame.size();
+    }
+
+    // returns the number of bytes published, nothing is published for an empty frame
+    @Override
+    public int flush() {
+        appendRemovedFlights();
+        if (frame.isEmpty()) {
+            return 0;
+        }
+        var event = event(frame, frameBytes);
+        frame.clear();
+        frameBytes = 0;
+        broadcast.publish(event);
+        return event.length;
+    }
+
+    // the current price of every flight displayed so far, as one event, or an empty array
+    byte[] snapshot() {
+        var lines = List.copyOf(lastLines.values());
+        int bytes = 0;
+        for (var bytesOfLine : lines) {
+            bytes += bytesOfLine.length;
+        }
+        return lines.isEmpty() ? new byte[0] : event(lines, bytes);
+    }
+
+    private static byte[] event(List<byte[]> lines, int bytes) {
+        var event = new ByteArrayOutputStream(EVENT_HEADER.length + bytes + 1);
+        event.writeBytes(EVENT_HEADER);
+        for (var bytesOfLine : lines) {
+            event.writeBytes(bytesOfLine);
+        }
+        event.write('\n');
+        return event.toByteArray();
+    }
+}
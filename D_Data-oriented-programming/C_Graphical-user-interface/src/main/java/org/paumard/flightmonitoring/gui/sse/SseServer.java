@@ -0,0 +1,184 @@
+package org.paumard.flightmonitoring.gui.sse;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.paumard.flightmonitoring.metrics.Counter;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streams the monitored prices to browsers as server-sent events. {@code /prices} is the
+ * event stream, {@code /} a page that displays it. Each connection is handled by its own
+ * virtual thread, that waits for the next event of the shared {@link PriceBroadcast}.
+ * An idle connection is a parked virtual thread and its socket, so tens of thousands of them
+ * are cheap. A comment is sent when nothing was published for a while, so that dead
+ * connections are detected. Clients that fall too far behind are disconnected by the
+ * publisher, even when they are stuck writing to a client that stopped reading;
+ * the browser reconnects and gets a fresh snapshot.
+ */
+public class SseServer implements AutoCloseable {
+
+    static final long KEEP_ALIVE_SECONDS = 15L;
+    static final long MAX_LAG = 1_000L;
+
+    private static final byte[] KEEP_ALIVE = ":\n\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PAGE = """
+            <!DOCTYPE html>
+            <html>
+            <head><meta charset="utf-8"><title>Flight prices</title></head>
+            <body>
+            <table><thead><tr><th>Flight</th><th>From</th><th>To</th><th>Price</th></tr></thead><tbody id="flights"></tbody></table>
+            <script>
+            const rows = new Map();
+            new EventSource("/prices").addEventListener("prices", event => {
+                for (const line of event.data.split("\\n")) {
+                    const flight = JSON.parse(line);
+                    let row = rows.get(flight.id);
+                    if (flight.removed) {
+                        row?.remove();
+                        rows.delete(flight.id);
+                        continue;
+                    }
+                    if (!row) {
+                        row = document.getElementById("flights").insertRow();
+                        row.insertCell().textContent = flight.id;
+                        row.insertCell().textContent = flight.from;
+                        row.insertCell().textContent = flight.to;
+                        row.insertCell();
+                        rows.set(flight.id, row);
+                    }
+                    row.cells[3].textContent = flight.price;
+                }
+            });
+            </script>
+            </body>
+            </html>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Counter connections = metrics.counter("gui.sse.connections");
+    private static final Counter laggingClients = metrics.counter("gui.sse.lagging-clients");
+    // the clients of all the servers: a gauge registered per server would replace the previous one
+    private static final AtomicInteger allClients = new AtomicInteger();
+
+    static {
+        metrics.gauge("gui.sse.clients", allClients::get);
+    }
+
+    private final PriceBroadcast broadcast;
+    private final SseRenderer renderer;
+    private final AtomicInteger clients = new AtomicInteger();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    private SseServer(InetSocketAddress address, long maxLag) throws IOException {
+        this.broadcast = new PriceBroadcast(maxLag);
+        this.renderer = new SseRenderer(broadcast);
+        this.server = HttpServer.create(address, 1_024);
+        server.setExecutor(executor);
+        server.createContext("/prices", this::stream);
+        server.createContext("/", this::page);
+        server.start();
+    }
+
+    public static SseServer start(InetSocketAddress address) throws IOException {
+        return new SseServer(address, MAX_LAG);
+    }
+
+    static SseServer start(InetSocketAddress address, long maxLag) throws IOException {
+        return new SseServer(address, maxLag);
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    public SseRenderer renderer() {
+        return renderer;
+    }
+
+    public int clients() {
+        return clients.get();
+    }
+
+    private void page(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestURI().getPath().equals("/")) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/html; charset=utf-8");
+            exchange.sendResponseHeaders(200, PAGE.length);
+            exchange.getResponseBody().write(PAGE);
+        }
+    }
+
+    private void stream(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            connections.increment();
+            clients.incrementAndGet();
+            allClients.incrementAndGet();
+            try {
+                send(exchange);
+            } finally {
+                clients.decrementAndGet();
+                allClients.decrementAndGet();
+            }
+        }
+    }
+
+    private void send(HttpExchange exchange) throws IOException {
+        var body = exchange.getResponseBody();
+        // the position in the broadcast is taken before the snapshot, so that no change is missed
+        var sent = broadcast.latest();
+        var subscriber = broadcast.subscribe(sent);
+        try {
+            body.write(renderer.snapshot());
+            body.flush();
+            while (true) {
+                var next = broadcast.awaitNext(sent, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+                if (broadcast.isClosed()) {
+                    return;
+                }
+                if (next == null) {
+                    body.write(KEEP_ALIVE);
+                } else {
+                    body.write(next.data());
+                    sent = next;
+                    subscriber.sent(sent);
+                }
+                body.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            broadcast.unsubscribe(subscriber);
+            // interrupted by the publisher, in a wait or in a blocked write
+            if (subscriber.isDropped()) {
+                laggingClients.increment();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        broadcast.close();
+        // the streams end on their own once the broadcast is closed, give them a second to do so
+        server.stop(1);
+        executor.shutdownNow();
+    }
+}
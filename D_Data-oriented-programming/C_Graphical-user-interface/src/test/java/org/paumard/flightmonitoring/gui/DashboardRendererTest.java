@@ -0,0 +1,96 @@
+package org.paumard.flightmonitoring.gui;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DashboardRendererTest {
+
+    private static final City paris = new City("Paris");
+    private static final City miami = new City("Miami");
+
+    private static Flight flight(int index) {
+        return new Flight(IDFlight.of("PaMi-dashboard-" + index), paris, miami, Price.of(100), new Plane("Airbus A350"));
+    }
+
+    @Test
+    public void a_frame_only_rewrites_the_prices_that_changed() throws Exception {
+        var channel = new FrameRendererTest.RecordingChannel();
+        var renderer = new DashboardRenderer(channel, 50, 20, 40);
+        var flights = IntStream.range(0, 1_000).mapToObj(DashboardRendererTest::flight).toList();
+        flights.forEach(renderer::append);
+        int firstFrame = renderer.flush();
+
+        flights.forEach(renderer::append);
+        int unchangedFrame = renderer.flush();
+
+        flights.get(7).updatePrice(95);
+        flights.get(512).updatePrice(1_234);
+        flights.forEach(renderer::append);
+        int bytesBefore = channel.bytes.size();
+        int changedFrame = renderer.flush();
+        var changes = channel.bytes.toString(StandardCharsets.US_ASCII).substring(bytesBefore);
+
+        assertThat(firstFrame).isGreaterThan(40_000);
+        assertThat(unchangedFrame).isZero();
+        assertThat(changedFrame).isLessThan(64);
+        assertThat(changes).isEqualTo(
+                "\u001B[8;33H     95" +
+                "\u001B[13;433H   1234" +
+                "\u001B[51;1H");
+    }
+
+    @Test
+    public void lays_the_cells_out_column_after_column() throws Exception {
+        var channel = new FrameRendererTest.RecordingChannel();
+        var renderer = new DashboardRenderer(channel, 2, 2, 20);
+
+        for (int index = 0; index < 5; index++) {
+            renderer.append(flight(100 + index));
+        }
+        renderer.flush();
+        var screen = channel.bytes.toString(StandardCharsets.US_ASCII);
+
+        assertThat(screen).isEqualTo("\u001B[2J\u001B[H" +
+                "\u001B[1;1HPaMi-dashboa    100" +
+                "\u001B[2;1HPaMi-dashboa    100" +
+                "\u001B[1;21HPaMi-dashboa    100" +
+                "\u001B[2;21HPaMi-dashboa    100" +
+                "\u001B[3;1H");
+    }
+
+    @Test
+    public void the_cell_of_a_removed_flight_is_blanked_then_reused() throws Exception {
+        var channel = new FrameRendererTest.RecordingChannel();
+        var renderer = new DashboardRenderer(channel, 1, 2, 20);
+        renderer.append(flight(200));
+        renderer.append(flight(201));
+        renderer.flush();
+
+        renderer.remove(IDFlight.of("PaMi-dashboard-200"));
+        int bytesBefore = channel.bytes.size();
+        renderer.flush();
+        renderer.append(flight(202));
+        renderer.flush();
+        var screen = channel.bytes.toString(StandardCharsets.US_ASCII).substring(bytesBefore);
+
+        assertThat(screen).isEqualTo(
+                "\u001B[1;1H                   " +
+                "\u001B[2;1H" +
+                "\u001B[1;1HPaMi-dashboa    100" +
+                "\u001B[2;1H");
+    }
+
+    @Test
+    public void a_dashboard_needs_rows_and_columns() {
+        assertThatThrownBy(() -> new DashboardRenderer(new FrameRendererTest.RecordingChannel(), 0, 4, 40))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new DashboardRenderer(new FrameRendererTest.RecordingChannel(), 40, 0, 40))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
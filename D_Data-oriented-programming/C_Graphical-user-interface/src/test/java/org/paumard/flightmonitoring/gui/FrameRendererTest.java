@@ -0,0 +1,121 @@
+package org.paumard.flightmonitoring.gui;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameRendererTest {
+
+    private static final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static final City paris = new City("Paris");
+    private static final City miami = new City("Miami");
+    private static final City london = new City("London");
+
+    static class RecordingChannel implements WritableByteChannel {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int writes;
+
+        @Override
+        public int write(ByteBuffer source) {
+            writes++;
+            int written = source.remaining();
+            if (source.hasArray()) {
+                bytes.write(source.array(), source.arrayOffset() + source.position(), written);
+            }
+            source.position(source.limit());
+            return written;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static Flight flight(String id, City from, City to, int price) {
+        return new Flight(IDFlight.of(id), from, to, Price.of(price), new Plane("Airbus A350"));
+    }
+
+    @Test
+    public void renders_a_frame_in_a_single_write() throws Exception {
+        var channel = new RecordingChannel();
+        var renderer = new FrameRenderer(channel, 16);
+
+        renderer.append(flight("PaMi", paris, miami, 100));
+        renderer.append(flight("LoPa", london, paris, 7));
+        renderer.append(flight("MiLo", miami, london, -2_147_483_648));
+        renderer.append(flight("PaLo", paris, london, 2_147_483_647).snapshot());
+        int bytes = renderer.flush();
+
+        assertThat(channel.writes).isEqualTo(1);
+        assertThat(bytes).isEqualTo(channel.bytes.size());
+        assertThat(channel.bytes.toString(StandardCharsets.UTF_8).lines().toList()).isEqualTo(List.of(
+                "Flight from Paris to Miami: price is now 100",
+                "Flight from London to Paris: price is now 7",
+                "Flight from Miami to London: price is now -2147483648",
+                "Flight from Paris to London: price is now 2147483647"));
+    }
+
+    @Test
+    public void an_empty_frame_writes_nothing() throws Exception {
+        var channel = new RecordingChannel();
+        var renderer = new FrameRenderer(channel, 16);
+
+        assertThat(renderer.flush()).isZero();
+        assertThat(channel.bytes.size()).isZero();
+    }
+
+    @Test
+    public void rendering_a_known_route_does_not_allocate() throws Exception {
+        var channel = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer source) {
+                int written = source.remaining();
+                source.position(source.limit());
+                return written;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        var renderer = new FrameRenderer(channel, 64 * 1024);
+        var flights = new Flight[]{flight("PaMi", paris, miami, 100), flight("LoPa", london, paris, 95)};
+        for (int i = 0; i < 20_000; i++) {
+            for (var flight : flights) {
+                renderer.append(flight);
+            }
+            renderer.flush();
+        }
+
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            for (var flight : flights) {
+                renderer.append(flight);
+            }
+            renderer.flush();
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated / 10_000).isZero();
+    }
+}
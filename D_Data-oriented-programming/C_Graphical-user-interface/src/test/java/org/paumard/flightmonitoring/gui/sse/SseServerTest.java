@@ -0,0 +1,189 @@
+package org.paumard.flightmonitoring.gui.sse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+import org.paumard.flightmonitoring.metrics.Gauge;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SseServerTest {
+
+    private static final City paris = new City("Paris");
+    private static final City miami = new City("Miami");
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private SseServer server;
+
+    @BeforeEach
+    public void startServer() throws IOException {
+        server = SseServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    @AfterEach
+    public void stopServer() {
+        server.close();
+    }
+
+    private Iterator<String> connect() throws IOException, InterruptedException {
+        var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.address().getPort() + "/prices")).build();
+        var response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type").orElseThrow()).isEqualTo("text/event-stream");
+        return response.body().iterator();
+    }
+
+    private void awaitClients(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000L;
+        while (server.clients() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertThat(server.clients()).isEqualTo(count);
+    }
+
+    private static String nextData(Iterator<String> lines) {
+        while (lines.hasNext()) {
+            var line = lines.next();
+            if (line.startsWith("data: ")) {
+                return line;
+            }
+        }
+        throw new AssertionError("Stream closed");
+    }
+
+    private static Flight flight(String id, int price) {
+        return new Flight(IDFlight.of(id), paris, miami, Price.of(price), new Plane("Airbus A350"));
+    }
+
+    @Test
+    public void all_clients_receive_the_same_event() throws IOException, InterruptedException {
+        var first = connect();
+        var second = connect();
+        awaitClients(2);
+
+        var renderer = server.renderer();
+        renderer.append(flight("PaMi", 250));
+        int bytes = renderer.flush();
+
+        var expected = "data: {\"id\":\"PaMi\",\"from\":\"Paris\",\"to\":\"Miami\",\"price\":250}";
+        assertThat(nextData(first)).isEqualTo(expected);
+        assertThat(nextData(second)).isEqualTo(expected);
+        assertThat(bytes).isEqualTo(SseRenderer.EVENT_HEADER.length + expected.length() + 2);
+    }
+
+    @Test
+    public void the_clients_gauge_counts_the_clients_of_every_server() throws IOException, InterruptedException {
+        var clients = (Gauge) MetricsRegistry.getInstance().metrics().get("gui.sse.clients");
+        try (var other = SseServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))) {
+            connect();
+            awaitClients(1);
+            // the streams of the servers of the previous tests end on their own
+            long deadline = System.currentTimeMillis() + 5_000L;
+            while (clients.value().getAsLong() != 1L && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10L);
+            }
+
+            assertThat(other.clients()).isEqualTo(0);
+            assertThat(clients.value().getAsLong()).isEqualTo(1L);
+        }
+    }
+
+    @Test
+    public void a_new_client_gets_the_current_prices() throws IOException, InterruptedException {
+        var renderer = server.renderer();
+        renderer.append(flight("PaMi", 250));
+        renderer.flush();
+        renderer.append(flight("PaMi", 300));
+        renderer.flush();
+
+        var lines = connect();
+
+        assertThat(nextData(lines)).endsWith("\"price\":300}");
+    }
+
+    @Test
+    public void an_empty_frame_is_not_published() {
+        assertThat(server.renderer().flush()).isZero();
+    }
+
+    @Test
+    public void ids_are_escaped() throws IOException, InterruptedException {
+        var lines = connect();
+        awaitClients(1);
+
+        var renderer = server.renderer();
+        renderer.append(flight("Pa\"Mi", 250));
+        renderer.flush();
+
+        assertThat(nextData(lines)).startsWith("data: {\"id\":\"Pa\\\"Mi\"");
+    }
+
+    @Test
+    public void closing_the_server_ends_the_streams() throws IOException, InterruptedException {
+        var lines = connect();
+        awaitClients(1);
+
+        server.close();
+
+        assertThat(Stream.generate(() -> lines.hasNext() ? lines.next() : null)
+                .takeWhile(line -> line != null)
+                .count()).isLessThan(10);
+        awaitClients(0);
+    }
+
+    @Test
+    public void a_removed_flight_is_dropped_from_the_pages() throws IOException, InterruptedException {
+        var lines = connect();
+        awaitClients(1);
+        var renderer = server.renderer();
+        renderer.append(flight("PaMi", 250));
+        renderer.append(flight("PaNy", 300));
+        renderer.flush();
+
+        renderer.remove(IDFlight.of("PaMi"));
+        renderer.flush();
+        var newClient = connect();
+
+        assertThat(nextData(lines)).contains("\"id\":\"PaMi\"");
+        assertThat(nextData(lines)).contains("\"id\":\"PaNy\"");
+        assertThat(nextData(lines)).isEqualTo("data: {\"id\":\"PaMi\",\"removed\":true}");
+        assertThat(nextData(newClient)).contains("\"id\":\"PaNy\"");
+        assertThat(newClient.next()).isEmpty();
+    }
+
+    @Test
+    public void a_client_that_stops_reading_is_dropped_by_the_publisher() throws IOException, InterruptedException {
+        server.close();
+        server = SseServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 8L);
+        try (var socket = new Socket()) {
+            socket.setReceiveBufferSize(4_096);
+            socket.connect(server.address());
+            socket.getOutputStream().write("GET /prices HTTP/1.1\r\nHost: localhost\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+            awaitClients(1);
+
+            var renderer = server.renderer();
+            var flights = IntStream.range(0, 1_000).mapToObj(index -> flight("PaMi-lagging-" + index, 100)).toList();
+            for (int frame = 0; frame < 200 && server.clients() > 0; frame++) {
+                flights.forEach(renderer::append);
+                renderer.flush();
+            }
+
+            awaitClients(0);
+        }
+    }
+}
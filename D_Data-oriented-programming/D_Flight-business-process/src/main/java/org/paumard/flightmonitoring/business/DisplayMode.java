@@ -0,0 +1,9 @@
+package org.paumard.flightmonitoring.business;
+
+public enum DisplayMode {
+    EVENTS, POLLING, RANKED;
+
+    public static DisplayMode fromSystemProperty() {
+        return valueOf(System.getProperty("flightmonitoring.display", EVENTS.name()).toUpperCase());
+    }
+}
@@ -0,0 +1,101 @@
+package org.paumard.flightmonitoring.business;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs the display frames on a dedicated thread, at most {@code maxFps} times per second.
+ * When a frame takes more than half of its slot, the interval is doubled, up to
+ * {@code maxInterval}; when frames are cheap again, it shrinks back to the cap.
+ * Frame slots that elapse while a frame is still rendering are counted as dropped.
+ * A failing frame is logged and the next one runs, only a {@link VirtualMachineError}
+ * stops the display thread.
+ */
+class DisplayScheduler implements AutoCloseable {
+
+    private final Runnable frame;
+    private final long minIntervalNanos;
+    private final long maxIntervalNanos;
+    private final Thread thread;
+
+    private volatile boolean running = true;
+    private volatile long intervalNanos;
+    private volatile long droppedFrames;
+
+    DisplayScheduler(Runnable frame, int maxFps, Duration maxInterval) {
+        if (maxFps <= 0) {
+            throw new IllegalArgumentException("maxFps must be positive: " + maxFps);
+        }
+        this.frame = frame;
+        this.minIntervalNanos = TimeUnit.SECONDS.toNanos(1) / maxFps;
+        this.maxIntervalNanos = Math.max(minIntervalNanos, maxInterval.toNanos());
+        this.intervalNanos = minIntervalNanos;
+        this.thread = Thread.ofPlatform().daemon().name("flight-display").unstarted(this::run);
+    }
+
+    static DisplayScheduler fromSystemProperties(Runnable frame) {
+        int maxFps = Integer.getInteger("flightmonitoring.display.max-fps", 10);
+        long maxIntervalMillis = Long.getLong("flightmonitoring.display.max-interval-ms", 2_000L);
+        return new DisplayScheduler(frame, maxFps, Duration.ofMillis(maxIntervalMillis));
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    private void run() {
+        long next = System.nanoTime();
+        while (running) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            long start = System.nanoTime();
+            try {
+                frame.run();
+            } catch (VirtualMachineError e) {
+                System.err.println("Display thread stopped: " + e);
+                throw e;
+            } catch (RuntimeException | Error e) {
+                System.err.println("Display frame failed: " + e);
+            }
+            long end = System.nanoTime();
+            droppedFrames += (end - next) / intervalNanos;
+            next = Math.max(next + adapt(end - start), end);
+        }
+    }
+
+    private long adapt(long renderNanos) {
+        long interval = intervalNanos;
+        if (renderNanos > interval / 2) {
+            interval = Math.min(maxIntervalNanos, Math.max(2 * interval, 2 * renderNanos));
+        } else if (renderNanos < interval / 8) {
+            interval = Math.max(minIntervalNanos, interval - interval / 4);
+        }
+        intervalNanos = interval;
+        return interval;
+    }
+
+    Duration interval() {
+        return Duration.ofNanos(intervalNanos);
+    }
+
+    long droppedFrames() {
+        return droppedFrames;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        if (thread.isAlive()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,22 +1,35 @@
 package org.paumard.flightmonitoring.business;
 
+import org.paumard.flightmonitoring.business.event.DisplayFrameEvent;
+import org.paumard.flightmonitoring.db.DirtyFlights;
 import org.paumard.flightmonitoring.db.FlightDBService;
 import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
 import org.paumard.flightmonitoring.db.model.IDFlight;
-import org.paumard.flightmonitoring.db.model.Price;
 import org.paumard.flightmonitoring.gui.FlightGUI;
+import org.paumard.flightmonitoring.metrics.Counter;
+import org.paumard.flightmonitoring.metrics.Histogram;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
 import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
 import org.paumard.flightmonitoring.pricemonitoring.model.FlightConsumer;
 import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class FlightMonitoring {
+public class FlightMonitoring implements AutoCloseable {
 
-    private static final Map<IDFlight, Flight> monitoredFlights = new ConcurrentHashMap<>();
+    private static final Map<String, Flight> monitoredFlights = new ConcurrentHashMap<>();
+    private static final DirtyFlights dirtyMonitoredFlights = new DirtyFlights();
+    private static final DisplayMode displayMode = DisplayMode.fromSystemProperty();
+    private static final RankedFlights rankedFlights = new RankedFlights();
+    private static final int topFlights = Integer.getInteger("flightmonitoring.display.top", 10);
 
     private static final FlightDBService dbService =
             FlightDBService.getInstance();
@@ -25,32 +38,274 @@ public class FlightMonitoring {
     private static final FlightGUI flightGUIService =
             FlightGUI.getInstance();
 
+    private static final SharedSubscriptions subscriptions =
+            new SharedSubscriptions(FlightMonitoring::subscribe, FlightMonitoring::unsubscribe);
+    // a token per follow, so that a rollback only releases the follows it made
+    private static final Map<String, Object> followedFlights = new ConcurrentHashMap<>();
+    // not a monitor: the bulk follows take it from virtual threads, that would pin their carrier
+    private static final ReentrantLock lifecycleLock = new ReentrantLock();
+    private static DisplayScheduler displayScheduler;
+    private static FlightMonitoring owner;
+
+    private static final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private static final Counter frames = metrics.counter("display.frames");
+    private static final Histogram frameDuration = metrics.histogram("display.frame.duration-ns");
+    private static final Counter updates = metrics.counter("display.updates");
+    private static final Counter renderedUpdates = metrics.counter("display.updates.rendered");
+    private static final Counter inconsistentSnapshots = metrics.counter("monitoring.snapshots.inconsistent");
+    private static final int SNAPSHOT_ATTEMPTS = 8;
+
+    static {
+        metrics.gauge("monitoring.followed", followedFlights::size);
+        metrics.gauge("monitoring.monitored", monitoredFlights::size);
+        metrics.gauge("monitoring.subscriptions", subscriptions::size);
+        metrics.gauge("display.updates.coalesced", dirtyMonitoredFlights::coalescedMarks);
+    }
+
     public static FlightMonitoring getInstance() {
+        var flightMonitoring = new FlightMonitoring();
+        flightMonitoring.start();
+        return flightMonitoring;
+    }
+
+    // the price ticks and the display are shared: the first instance started runs them until it is closed
+    public void start() {
+        synchronized (FlightMonitoring.class) {
+            if (owner != null) {
+                return;
+            }
+            owner = this;
+        }
+        metrics.exposeOverJmx();
+        metrics.startDumping();
         priceMonitoringService.updatePrices();
+        flightGUIService.start();
         launchDisplay();
-        return new FlightMonitoring();
+    }
+
+    // stops the shared services if this instance started them, and does nothing otherwise
+    @Override
+    public void close() {
+        DisplayScheduler scheduler;
+        synchronized (FlightMonitoring.class) {
+            if (owner != this) {
+                return;
+            }
+            owner = null;
+            scheduler = displayScheduler;
+            displayScheduler = null;
+        }
+        try {
+            priceMonitoringService.stopUpdatingPrices();
+            metrics.stopDumping();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (scheduler != null) {
+            scheduler.close();
+        }
+        // after the last frame
+        flightGUIService.stop();
     }
 
     public void followFlight(IDFlight idFlight) {
-        Flight flight = dbService.fetchFlight(idFlight);
-        FlightID flightID = new FlightID(idFlight.flightId());
-        FlightConsumer flightConsumer = price -> flight.updatePrice(new Price(price.price()));
-        priceMonitoringService.followPrice(flightID, flightConsumer);
+        follow(idFlight);
+    }
+
+    // returns the token of the follow, or null if the flight was already followed
+    private static Object follow(IDFlight idFlight) {
+        var token = new Object();
+        if (followedFlights.putIfAbsent(idFlight.flightId(), token) != null) {
+            return null;
+        }
+        try {
+            subscriptions.acquire(idFlight);
+            return token;
+        } catch (Throwable e) {
+            // or the next follows of this flight would do nothing
+            followedFlights.remove(idFlight.flightId(), token);
+            throw e;
+        }
+    }
+
+    public void followFlights(Collection<IDFlight> idFlights) throws InterruptedException {
+        var followed = new ConcurrentHashMap<IDFlight, Object>();
+        Optional<Throwable> failure;
+        try (var scope = new StructuredTaskScope.ShutdownOnFailure()) {
+            for (var idFlight : idFlights) {
+                scope.fork(() -> {
+                    // the flights followed before this call are not rolled back
+                    var token = follow(idFlight);
+                    if (token != null) {
+                        followed.put(idFlight, token);
+                    }
+                    return idFlight;
+                });
+            }
+            scope.join();
+            failure = scope.exception();
+        }
+        // closing the scope waits for the cancelled siblings, so every completed follow is in the map
+        if (failure.isPresent()) {
+            // a flight unfollowed then followed again by another caller in between has another token
+            followed.forEach((idFlight, token) -> {
+                if (followedFlights.remove(idFlight.flightId(), token)) {
+                    subscriptions.release(idFlight);
+                }
+            });
+            throw failure.get() instanceof RuntimeException runtimeException ?
+                    runtimeException : new IllegalStateException(failure.get());
+        }
+    }
+
+    public MonitoringSession openSession() {
+        return new MonitoringSession(subscriptions);
+    }
+
+    public void unfollowFlight(IDFlight idFlight) {
+        if (followedFlights.remove(idFlight.flightId()) != null) {
+            subscriptions.release(idFlight);
+        }
+    }
+
+    private static Flight subscribe(IDFlight idFlight) {
+        // a miss loads the flight outside of the lifecycle lock, so that bulk follows fetch in parallel
+        Flight fetched = dbService.fetchFlight(idFlight);
+        lifecycleLock.lock();
+        try {
+            // evicted in between, by an unmonitor: loaded again, under the lock this time
+            Flight flight = dbService.isCached(fetched) ? fetched : dbService.fetchFlight(idFlight);
+            FlightID flightID = FlightID.of(idFlight.flightId());
+            FlightConsumer flightConsumer = price -> priceChanged(flight, price);
+            priceMonitoringService.followPrice(flightID, flightConsumer);
+            return flight;
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    private static void priceChanged(Flight flight, int price) {
+        dbService.updatePrice(flight, price);
+        // only sets a bit: the display thread picks up the latest price on its next frame
+        if (dirtyMonitoredFlights.markDirty(flight)) {
+            updates.increment();
+        }
+    }
+
+    // a price received from the cluster node that owns the flight, displayed like a local one
+    public void updateReplicaPrice(IDFlight idFlight, int price) {
+        priceChanged(dbService.fetchFlight(idFlight), price);
+    }
+
+    private static void unsubscribe(Flight flight) {
+        lifecycleLock.lock();
+        try {
+            priceMonitoringService.unfollowPrice(FlightID.of(flight.id().flightId()));
+            if (!monitoredFlights.containsKey(flight.id().flightId())) {
+                dbService.evictFlight(flight.id());
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
     }
 
     public void monitorFlight(IDFlight idFlight) {
-        var flight = dbService.fetchFlight(idFlight);
-        monitoredFlights.put(idFlight, flight);
+        lifecycleLock.lock();
+        try {
+            var flight = dbService.fetchFlight(idFlight);
+            if (monitoredFlights.putIfAbsent(idFlight.flightId(), flight) == null) {
+                dirtyMonitoredFlights.track(flight);
+                dirtyMonitoredFlights.markDirty(flight);
+                updates.increment();
+                rankedFlights.update(flight);
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
+    }
+
+    public void unmonitorFlight(IDFlight idFlight) {
+        lifecycleLock.lock();
+        try {
+            var flight = monitoredFlights.remove(idFlight.flightId());
+            if (flight == null) {
+                return;
+            }
+            dirtyMonitoredFlights.untrack(flight);
+            rankedFlights.remove(flight);
+            flightGUIService.removeFlight(idFlight);
+            if (!priceMonitoringService.isFollowing(FlightID.of(idFlight.flightId()))) {
+                dbService.evictFlight(idFlight);
+            }
+        } finally {
+            lifecycleLock.unlock();
+        }
     }
 
-    public static void launchDisplay() {
-        var executor = Executors.newScheduledThreadPool(1);
-        Runnable task = () -> {
-//            System.out.println("Displaying " + monitoredFlights.size() + " flights");
-            for (var flight : monitoredFlights.values()) {
-                flightGUIService.displayFlight(flight);
+    public List<FlightSnapshot> monitoredFlights() {
+        return snapshotMonitoredFlights();
+    }
+
+    // the prices of all the flights at one instant, or, if they keep changing, the latest price of each flight
+    private static List<FlightSnapshot> snapshotMonitoredFlights() {
+        var flights = monitoredFlights.values().toArray(Flight[]::new);
+        var consistent = Flight.snapshots(flights, SNAPSHOT_ATTEMPTS);
+        if (consistent.isPresent()) {
+            return consistent.get();
+        }
+        inconsistentSnapshots.increment();
+        var frame = new ArrayList<FlightSnapshot>(flights.length);
+        for (var flight : flights) {
+            frame.add(flight.snapshot());
+        }
+        return frame;
+    }
+
+    private static void launchDisplay() {
+        DisplayScheduler scheduler;
+        synchronized (FlightMonitoring.class) {
+            if (displayScheduler != null) {
+                return;
+            }
+            scheduler = displayScheduler = DisplayScheduler.fromSystemProperties(FlightMonitoring::displayFrame);
+            metrics.gauge("display.interval-ms", () -> scheduler.interval().toMillis());
+            metrics.gauge("display.frames.dropped", scheduler::droppedFrames);
+        }
+        scheduler.start();
+    }
+
+    private static void displayFrame() {
+        long start = System.nanoTime();
+        if (DisplayFrameEvent.enabled()) {
+            var event = new DisplayFrameEvent();
+            event.begin();
+            event.flightsDisplayed = renderFrame();
+            event.mode = displayMode.name();
+            event.commit();
+        } else {
+            renderFrame();
+        }
+        frameDuration.record(System.nanoTime() - start);
+        frames.increment();
+    }
+
+    private static int renderFrame() {
+        switch (displayMode) {
+            case EVENTS -> renderedUpdates.add(dirtyMonitoredFlights.drain(flight -> flightGUIService.addToFrame(flight)));
+            // drained as well, so that the next updates are not counted as coalesced into this frame
+            case POLLING -> {
+                renderedUpdates.add(dirtyMonitoredFlights.drain(_ -> {
+                }));
+                for (var flight : monitoredFlights.values()) {
+                    flightGUIService.addToFrame(flight);
+                }
+            }
+            // the changed flights are moved in the ranking, then only the cheapest ones are displayed
+            case RANKED -> {
+                renderedUpdates.add(dirtyMonitoredFlights.drain(flight -> rankedFlights.update(flight)));
+                rankedFlights.forEachCheapest(topFlights, flight -> flightGUIService.addToFrame(flight));
             }
-        };
-        executor.scheduleAtFixedRate(task, 0, 500, TimeUnit.MILLISECONDS);
+        }
+        return flightGUIService.displayFrame();
     }
 }
\ No newline at end of file
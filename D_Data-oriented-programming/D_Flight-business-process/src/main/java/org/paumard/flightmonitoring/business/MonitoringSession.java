@@ -0,0 +1,50 @@
+package org.paumard.flightmonitoring.business;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class MonitoringSession implements AutoCloseable {
+
+    private final SharedSubscriptions subscriptions;
+    private final Map<String, Flight> followedFlights = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    MonitoringSession(SharedSubscriptions subscriptions) {
+        this.subscriptions = subscriptions;
+    }
+
+    public void followFlight(IDFlight idFlight) {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        followedFlights.computeIfAbsent(idFlight.flightId(), _ -> subscriptions.acquire(idFlight));
+    }
+
+    public void unfollowFlight(IDFlight idFlight) {
+        if (followedFlights.remove(idFlight.flightId()) != null) {
+            subscriptions.release(idFlight);
+        }
+    }
+
+    public List<FlightSnapshot> followedFlights() {
+        var frame = new ArrayList<FlightSnapshot>(followedFlights.size());
+        for (var flight : followedFlights.values()) {
+            frame.add(flight.snapshot());
+        }
+        return frame;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (var flight : followedFlights.values()) {
+            unfollowFlight(flight.id());
+        }
+    }
+}
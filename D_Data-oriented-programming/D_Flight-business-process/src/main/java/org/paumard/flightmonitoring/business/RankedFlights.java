@@ -0,0 +1,62 @@
+package org.paumard.flightmonitoring.business;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+
+/**
+ * The monitored flights, ordered by price, then by id. A flight is moved in O(log n)
+ * when its price is updated, and the n cheapest flights are read in O(n) from the head
+ * of the ranking, instead of sorting every flight on each frame.
+ * The price a flight is ranked with is the one read by its last update.
+ */
+class RankedFlights {
+
+    private record Ranked(int price, String flightId, Flight flight) {
+    }
+
+    private static final Comparator<Ranked> BY_PRICE =
+            Comparator.comparingInt(Ranked::price).thenComparing(Ranked::flightId);
+
+    private final ConcurrentSkipListSet<Ranked> ranking = new ConcurrentSkipListSet<>(BY_PRICE);
+    private final ConcurrentHashMap<String, Ranked> rankedFlights = new ConcurrentHashMap<>();
+
+    // adds the flight, or moves it to its current price
+    void update(Flight flight) {
+        int price = flight.price().price();
+        rankedFlights.compute(flight.id().flightId(), (flightId, ranked) -> {
+            if (ranked != null) {
+                if (ranked.price() == price) {
+                    return ranked;
+                }
+                ranking.remove(ranked);
+            }
+            var updated = new Ranked(price, flightId, flight);
+            ranking.add(updated);
+            return updated;
+        });
+    }
+
+    void remove(Flight flight) {
+        rankedFlights.computeIfPresent(flight.id().flightId(), (_, ranked) -> {
+            ranking.remove(ranked);
+            return null;
+        });
+    }
+
+    int size() {
+        return rankedFlights.size();
+    }
+
+    // returns the number of flights passed to the consumer, cheapest first
+    int forEachCheapest(int count, Consumer<? super Flight> consumer) {
+        int passed = 0;
+        for (var iterator = ranking.iterator(); passed < count && iterator.hasNext(); passed++) {
+            consumer.accept(iterator.next().flight());
+        }
+        return passed;
+    }
+}
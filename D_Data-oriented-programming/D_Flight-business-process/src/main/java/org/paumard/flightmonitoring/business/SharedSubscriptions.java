@@ -0,0 +1,135 @@
+package org.paumard.flightmonitoring.business;
+
+import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One underlying subscription per followed flight, shared by every holder and
+ * reference counted. The first acquire opens it, the last release tears it down.
+ * The first acquire publishes a future under the lock of the subscription, then
+ * subscribes outside of it, as the loads of the flight store: the other acquires of
+ * the same flight wait on that future. The locks are {@link ReentrantLock}s, so that
+ * the virtual threads of a bulk follow do not pin their carrier.
+ */
+class SharedSubscriptions {
+
+    private static class Subscription {
+        private final IDFlight idFlight;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final CompletableFuture<Flight> flight = new CompletableFuture<>();
+        private boolean opening;
+        private int references;
+        private boolean closed;
+
+        private Subscription(IDFlight idFlight) {
+            this.idFlight = idFlight;
+        }
+    }
+
+    private final ConcurrentHashMap<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final Function<IDFlight, Flight> subscribe;
+    private final Consumer<Flight> unsubscribe;
+
+    SharedSubscriptions(Function<IDFlight, Flight> subscribe, Consumer<Flight> unsubscribe) {
+        this.subscribe = subscribe;
+        this.unsubscribe = unsubscribe;
+    }
+
+    Flight acquire(IDFlight idFlight) {
+        while (true) {
+            var subscription = subscriptions.computeIfAbsent(idFlight.flightId(), _ -> new Subscription(idFlight));
+            boolean opener;
+            subscription.lock.lock();
+            try {
+                if (subscription.closed) {
+                    continue;
+                }
+                subscription.references++;
+                opener = !subscription.opening;
+                subscription.opening = true;
+            } finally {
+                subscription.lock.unlock();
+            }
+            if (opener) {
+                return open(subscription);
+            }
+            try {
+                return subscription.flight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+    }
+
+    private Flight open(Subscription subscription) {
+        try {
+            var flight = subscribe.apply(subscription.idFlight);
+            subscription.flight.complete(flight);
+            return flight;
+        } catch (Throwable e) {
+            // an Error too, or the acquires waiting on this future would wait forever
+            subscription.lock.lock();
+            try {
+                subscription.closed = true;
+                subscriptions.remove(subscription.idFlight.flightId(), subscription);
+            } finally {
+                subscription.lock.unlock();
+            }
+            subscription.flight.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    boolean release(IDFlight idFlight) {
+        var subscription = subscriptions.get(idFlight.flightId());
+        if (subscription == null) {
+            return false;
+        }
+        subscription.lock.lock();
+        try {
+            if (subscription.closed) {
+                return false;
+            }
+            if (--subscription.references == 0) {
+                subscription.closed = true;
+                // removed last: a new acquire waits on this lock until the flight is unsubscribed
+                try {
+                    unsubscribe.accept(subscription.flight.join());
+                } finally {
+                    subscriptions.remove(idFlight.flightId(), subscription);
+                }
+                return true;
+            }
+            return false;
+        } finally {
+            subscription.lock.unlock();
+        }
+    }
+
+    int references(IDFlight idFlight) {
+        var subscription = subscriptions.get(idFlight.flightId());
+        if (subscription == null) {
+            return 0;
+        }
+        subscription.lock.lock();
+        try {
+            return subscription.closed ? 0 : subscription.references;
+        } finally {
+            subscription.lock.unlock();
+        }
+    }
+
+    int size() {
+        return subscriptions.size();
+    }
+}
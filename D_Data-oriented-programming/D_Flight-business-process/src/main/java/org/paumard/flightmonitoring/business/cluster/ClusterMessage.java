@@ -0,0 +1,27 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import java.util.List;
+
+public sealed interface ClusterMessage {
+
+    record Hello(NodeAddress node) implements ClusterMessage {
+    }
+
+    record Members(List<NodeAddress> nodes) implements ClusterMessage {
+    }
+
+    record Leave(NodeAddress node) implements ClusterMessage {
+    }
+
+    record Follow(String flightId) implements ClusterMessage {
+    }
+
+    record Unfollow(String flightId) implements ClusterMessage {
+    }
+
+    record Prices(List<PriceUpdate> updates) implements ClusterMessage {
+    }
+
+    record PriceUpdate(String flightId, int price) {
+    }
+}
@@ -0,0 +1,389 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.paumard.flightmonitoring.business.cluster.ClusterMessage.*;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Each flight is owned by one node of the ring: the owner follows its price, and publishes
+ * the changes to the nodes that asked to follow it. The nodes form a full mesh: a new node
+ * says hello to its seeds, and connects to every member they report back.
+ * When the members change, each node moves the follows it requested to their new owners.
+ */
+public class ClusterNode implements AutoCloseable {
+
+    @FunctionalInterface
+    public interface PriceListener {
+        void onPrice(IDFlight idFlight, int price, NodeAddress owner);
+    }
+
+    private static final class OwnedFlight {
+        private final Set<NodeAddress> subscribers = new HashSet<>();
+        private long publishedVersion = -1L;
+    }
+
+    private final NodeAddress self;
+    private final LocalFlights localFlights;
+    private final ServerSocket serverSocket;
+    private final ScheduledExecutorService publisher;
+    private final Thread acceptor;
+    private final Map<NodeAddress, PeerConnection> peers = new ConcurrentHashMap<>();
+    private final Set<NodeAddress> connecting = ConcurrentHashMap.newKeySet();
+    private final List<PriceListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Object lock = new Object();
+    private ConsistentHashRing ring;
+    private final Map<String, NodeAddress> requestedFlights = new HashMap<>();
+    private final Map<String, OwnedFlight> ownedFlights = new HashMap<>();
+    private volatile boolean closed;
+
+    private ClusterNode(ServerSocket serverSocket, NodeAddress self, LocalFlights localFlights, Duration publishInterval) {
+        this.serverSocket = serverSocket;
+        this.self = self;
+        this.localFlights = localFlights;
+        this.ring = new ConsistentHashRing(List.of(self));
+        this.publisher = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("cluster-publisher").factory());
+        long interval = publishInterval.toNanos();
+        publisher.scheduleAtFixedRate(this::publishPricesQuietly, interval, interval, TimeUnit.NANOSECONDS);
+        this.acceptor = Thread.ofVirtual().name("cluster-acceptor").start(this::acceptLoop);
+    }
+
+    public static ClusterNode start(String host, int port, List<NodeAddress> seeds,
+                                    LocalFlights localFlights, Duration publishInterval) throws IOException {
+        var serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(host, port));
+        var node = new ClusterNode(serverSocket, new NodeAddress(host, serverSocket.getLocalPort()), localFlights, publishInterval);
+        try {
+            for (var seed : seeds) {
+                node.connect(seed);
+            }
+        } catch (RuntimeException e) {
+            // releases the server socket, the acceptor and the publisher
+            try {
+                node.close();
+            } catch (IOException closeFailure) {
+                e.addSuppressed(closeFailure);
+            }
+            throw e;
+        }
+        return node;
+    }
+
+    public NodeAddress address() {
+        return self;
+    }
+
+    public List<NodeAddress> members() {
+        synchronized (lock) {
+            return ring.nodes();
+        }
+    }
+
+    public NodeAddress ownerOf(IDFlight idFlight) {
+        synchronized (lock) {
+            return ring.ownerOf(idFlight.flightId());
+        }
+    }
+
+    public Set<String> ownedFlights() {
+        synchronized (lock) {
+            return Set.copyOf(ownedFlights.keySet());
+        }
+    }
+
+    public void addPriceListener(PriceListener listener) {
+        listeners.add(listener);
+    }
+
+    public void followFlight(IDFlight idFlight) {
+        synchronized (lock) {
+            var key = idFlight.flightId();
+            if (requestedFlights.containsKey(key)) {
+                return;
+            }
+            var owner = ring.ownerOf(key);
+            requestedFlights.put(key, owner);
+            requestFollow(key, owner);
+        }
+    }
+
+    public void unfollowFlight(IDFlight idFlight) {
+        synchronized (lock) {
+            var owner = requestedFlights.remove(idFlight.flightId());
+            if (owner == null) {
+                return;
+            }
+            requestUnfollow(idFlight.flightId(), owner);
+            if (!owner.equals(self)) {
+                localFlights.evictReplica(idFlight);
+            }
+        }
+    }
+
+    private void requestFollow(String key, NodeAddress owner) {
+        if (owner.equals(self)) {
+            addSubscriber(key, self);
+        } else {
+            // a peer that just disconnected is still in the ring until the next rebalance, which moves the follow
+            var peer = peers.get(owner);
+            if (peer != null) {
+                peer.send(new Follow(key));
+            }
+        }
+    }
+
+    private void requestUnfollow(String key, NodeAddress owner) {
+        if (owner.equals(self)) {
+            removeSubscriber(key, self);
+        } else {
+            var peer = peers.get(owner);
+            if (peer != null) {
+                peer.send(new Unfollow(key));
+            }
+        }
+    }
+
+    private void addSubscriber(String key, NodeAddress subscriber) {
+        if (closed) {
+            // a follow still in flight from a peer that did not see the leave yet
+            return;
+        }
+        var ownedFlight = ownedFlights.get(key);
+        if (ownedFlight == null) {
+            localFlights.follow(IDFlight.of(key));
+            ownedFlights.put(key, ownedFlight = new OwnedFlight());
+        }
+        ownedFlight.subscribers.add(subscriber);
+        // the new subscriber needs the current price, even if it did not change
+        ownedFlight.publishedVersion = -1L;
+    }
+
+    private void removeSubscriber(String key, NodeAddress subscriber) {
+        var ownedFlight = ownedFlights.get(key);
+        if (ownedFlight != null && ownedFlight.subscribers.remove(subscriber) && ownedFlight.subscribers.isEmpty()) {
+            ownedFlights.remove(key);
+            localFlights.unfollow(IDFlight.of(key));
+        }
+    }
+
+    private void rebalance() {
+        synchronized (lock) {
+            var members = new ArrayList<NodeAddress>(peers.keySet());
+            members.add(self);
+            var newRing = new ConsistentHashRing(members);
+            if (newRing.nodes().equals(ring.nodes())) {
+                return;
+            }
+            ring = newRing;
+            for (var request : requestedFlights.entrySet()) {
+                var key = request.getKey();
+                var owner = ring.ownerOf(key);
+                if (!owner.equals(request.getValue())) {
+                    requestUnfollow(key, request.getValue());
+                    request.setValue(owner);
+                    requestFollow(key, owner);
+                }
+            }
+        }
+    }
+
+    // an exception escaping a scheduled task would cancel the next publications
+    private void publishPricesQuietly() {
+        try {
+            publishPrices();
+        } catch (RuntimeException e) {
+            System.err.println("Cluster node " + self + " failed to publish prices: " + e);
+        }
+    }
+
+    private void publishPrices() {
+        var batches = new HashMap<NodeAddress, List<PriceUpdate>>();
+        var localUpdates = new ArrayList<PriceUpdate>();
+        synchronized (lock) {
+            for (var owned : ownedFlights.entrySet()) {
+                var ownedFlight = owned.getValue();
+                var snapshot = localFlights.snapshot(IDFlight.of(owned.getKey()));
+                if (snapshot.version() == ownedFlight.publishedVersion) {
+                    continue;
+                }
+                ownedFlight.publishedVersion = snapshot.version();
+                var update = new PriceUpdate(owned.getKey(), snapshot.price().price());
+                for (var subscriber : ownedFlight.subscribers) {
+                    if (subscriber.equals(self)) {
+                        localUpdates.add(update);
+                    } else {
+                        batches.computeIfAbsent(subscriber, _ -> new ArrayList<>()).add(update);
+                    }
+                }
+            }
+        }
+        // encoded outside the lock, a subscriber that left in between does not read them
+        for (var batch : batches.entrySet()) {
+            var peer = peers.get(batch.getKey());
+            if (peer != null) {
+                ClusterProtocol.prices(batch.getValue()).forEach(peer::send);
+            }
+        }
+        for (var update : localUpdates) {
+            notifyListeners(IDFlight.of(update.flightId()), update.price(), self);
+        }
+    }
+
+    private void notifyListeners(IDFlight idFlight, int price, NodeAddress owner) {
+        for (var listener : listeners) {
+            listener.onPrice(idFlight, price, owner);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            try {
+                open(serverSocket.accept());
+            } catch (IOException e) {
+                if (!closed) {
+                    System.err.println("Cluster node " + self + " failed to accept a connection: " + e);
+                }
+            }
+        }
+    }
+
+    private void connect(NodeAddress node) {
+        if (node.equals(self) || peers.containsKey(node) || !connecting.add(node)) {
+            return;
+        }
+        try {
+            open(new Socket(node.host(), node.port()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot connect to " + node, e);
+        } finally {
+            connecting.remove(node);
+        }
+    }
+
+    private void open(Socket socket) throws IOException {
+        var connection = new PeerConnection(socket);
+        connection.start(this::handle, this::disconnected);
+        connection.send(new Hello(self));
+    }
+
+    private void handle(PeerConnection connection, ClusterMessage message) {
+        switch (message) {
+            case Hello(var node) -> {
+                connection.peer(node);
+                peers.putIfAbsent(node, connection);
+                var members = new ArrayList<NodeAddress>(peers.keySet());
+                members.add(self);
+                connection.send(new Members(members));
+                rebalance();
+            }
+            case Members(var nodes) -> {
+                for (var node : nodes) {
+                    if (!node.equals(self) && !peers.containsKey(node)) {
+                        Thread.ofVirtual().start(() -> connectQuietly(node));
+                    }
+                }
+            }
+            case Leave(var _) -> connection.close();
+            case Follow(var flightId) -> {
+                synchronized (lock) {
+                    addSubscriber(flightId, connection.peer());
+                }
+            }
+            case Unfollow(var flightId) -> {
+                synchronized (lock) {
+                    removeSubscriber(flightId, connection.peer());
+                }
+            }
+            case Prices(var updates) -> {
+                var owner = connection.peer();
+                for (var update : updates) {
+                    var idFlight = IDFlight.of(update.flightId());
+                    synchronized (lock) {
+                        if (!owner.equals(requestedFlights.get(update.flightId()))) {
+                            continue;
+                        }
+                        localFlights.updateReplica(idFlight, update.price());
+                    }
+                    notifyListeners(idFlight, update.price(), owner);
+                }
+            }
+        }
+    }
+
+    private void connectQuietly(NodeAddress node) {
+        try {
+            connect(node);
+        } catch (UncheckedIOException e) {
+            System.err.println("Cluster node " + self + ": " + e.getMessage());
+        }
+    }
+
+    private void disconnected(PeerConnection connection) {
+        var node = connection.peer();
+        if (node == null || closed || !peers.remove(node, connection)) {
+            return;
+        }
+        synchronized (lock) {
+            for (var key : List.copyOf(ownedFlights.keySet())) {
+                removeSubscriber(key, node);
+            }
+        }
+        rebalance();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        boolean interrupted = false;
+        publisher.shutdown();
+        try {
+            publisher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        serverSocket.close();
+        // the socket of a pending accept is only released once the acceptor wakes up
+        try {
+            acceptor.join();
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        for (var peer : peers.values()) {
+            peer.send(new Leave(self));
+            peer.closeGracefully();
+        }
+        peers.clear();
+        synchronized (lock) {
+            for (var key : ownedFlights.keySet()) {
+                localFlights.unfollow(IDFlight.of(key));
+            }
+            ownedFlights.clear();
+            for (var request : requestedFlights.entrySet()) {
+                if (!request.getValue().equals(self)) {
+                    localFlights.evictReplica(IDFlight.of(request.getKey()));
+                }
+            }
+            requestedFlights.clear();
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.paumard.flightmonitoring.business.cluster.ClusterMessage.*;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A frame is an int length, then a one byte message type and its payload. Strings are
+ * written as an unsigned byte length followed by their ASCII bytes, ports as unsigned shorts.
+ */
+public final class ClusterProtocol {
+
+    static final int MAX_FRAME_SIZE = 1 << 20;
+
+    private static final byte HELLO = 1;
+    private static final byte MEMBERS = 2;
+    private static final byte LEAVE = 3;
+    private static final byte FOLLOW = 4;
+    private static final byte UNFOLLOW = 5;
+    private static final byte PRICES = 6;
+
+    private ClusterProtocol() {
+    }
+
+    public static byte[] encode(ClusterMessage message) {
+        int size = Integer.BYTES + 1 + payloadSize(message);
+        if (size > MAX_FRAME_SIZE) {
+            throw new IllegalArgumentException("Frame of " + size + " bytes exceeds " + MAX_FRAME_SIZE);
+        }
+        var buffer = ByteBuffer.allocate(size);
+        buffer.putInt(size - Integer.BYTES);
+        switch (message) {
+            case Hello(var node) -> putNode(buffer.put(HELLO), node);
+            case Members(var nodes) -> {
+                buffer.put(MEMBERS).putShort((short) nodes.size());
+                nodes.forEach(node -> putNode(buffer, node));
+            }
+            case Leave(var node) -> putNode(buffer.put(LEAVE), node);
+            case Follow(var flightId) -> putString(buffer.put(FOLLOW), flightId);
+            case Unfollow(var flightId) -> putString(buffer.put(UNFOLLOW), flightId);
+            case Prices(var updates) -> {
+                buffer.put(PRICES).putInt(updates.size());
+                for (var update : updates) {
+                    putString(buffer, update.flightId());
+                    buffer.putInt(update.price());
+                }
+            }
+        }
+        return buffer.array();
+    }
+
+    // the updates, in as many Prices messages as needed to keep each frame under the maximum size
+    static List<Prices> prices(List<PriceUpdate> updates) {
+        int headerSize = Integer.BYTES + 1 + Integer.BYTES;
+        var messages = new ArrayList<Prices>();
+        int from = 0;
+        int size = headerSize;
+        for (int index = 0; index < updates.size(); index++) {
+            int updateSize = stringSize(updates.get(index).flightId()) + Integer.BYTES;
+            if (size + updateSize > MAX_FRAME_SIZE) {
+                messages.add(new Prices(List.copyOf(updates.subList(from, index))));
+                from = index;
+                size = headerSize;
+            }
+            size += updateSize;
+        }
+        if (from < updates.size()) {
+            messages.add(new Prices(List.copyOf(updates.subList(from, updates.size()))));
+        }
+        return messages;
+    }
+
+    public static ClusterMessage read(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 1 || length > MAX_FRAME_SIZE) {
+            throw new StreamCorruptedException("Invalid frame length " + length);
+        }
+        var frame = new byte[length];
+        in.readFully(frame);
+        try {
+            return decode(ByteBuffer.wrap(frame));
+        } catch (RuntimeException e) {
+            var corrupted = new StreamCorruptedException("Invalid frame: " + e.getMessage());
+            corrupted.initCause(e);
+            throw corrupted;
+        }
+    }
+
+    static ClusterMessage decode(ByteBuffer frame) {
+        var message = switch (frame.get()) {
+            case HELLO -> new Hello(getNode(frame));
+            case MEMBERS -> {
+                int count = Short.toUnsignedInt(frame.getShort());
+                var nodes = new ArrayList<NodeAddress>(count);
+                for (int index = 0; index < count; index++) {
+                    nodes.add(getNode(frame));
+                }
+                yield new Members(List.copyOf(nodes));
+            }
+            case LEAVE -> new Leave(getNode(frame));
+            case FOLLOW -> new Follow(getString(frame));
+            case UNFOLLOW -> new Unfollow(getString(frame));
+            case PRICES -> {
+                int count = frame.getInt();
+                var updates = new ArrayList<PriceUpdate>(Math.min(count, frame.remaining() / 5));
+                for (int index = 0; index < count; index++) {
+                    updates.add(new PriceUpdate(getString(frame), frame.getInt()));
+                }
+                yield new Prices(List.copyOf(updates));
+            }
+            default -> throw new IllegalArgumentException("Unknown message type " + frame.get(frame.position() - 1));
+        };
+        if (frame.hasRemaining()) {
+            throw new IllegalArgumentException(frame.remaining() + " trailing bytes");
+        }
+        return message;
+    }
+
+    private static int payloadSize(ClusterMessage message) {
+        return switch (message) {
+            case Hello(var node) -> nodeSize(node);
+            case Members(var nodes) -> Short.BYTES + nodes.stream().mapToInt(ClusterProtocol::nodeSize).sum();
+            case Leave(var node) -> nodeSize(node);
+            case Follow(var flightId) -> stringSize(flightId);
+            case Unfollow(var flightId) -> stringSize(flightId);
+            case Prices(var updates) -> Integer.BYTES +
+                    updates.stream().mapToInt(update -> stringSize(update.flightId()) + Integer.BYTES).sum();
+        };
+    }
+
+    private static int nodeSize(NodeAddress node) {
+        return stringSize(node.host()) + Short.BYTES;
+    }
+
+    private static int stringSize(String value) {
+        if (value.length() > 0xFF) {
+            throw new IllegalArgumentException("String too long for the cluster protocol: " + value);
+        }
+        return 1 + value.length();
+    }
+
+    private static void putNode(ByteBuffer buffer, NodeAddress node) {
+        putString(buffer, node.host());
+        buffer.putShort((short) node.port());
+    }
+
+    private static NodeAddress getNode(ByteBuffer buffer) {
+        return new NodeAddress(getString(buffer), Short.toUnsignedInt(buffer.getShort()));
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        buffer.put((byte) value.length());
+        for (int index = 0; index < value.length(); index++) {
+            buffer.put((byte) value.charAt(index));
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Byte.toUnsignedInt(buffer.get());
+        var value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.US_ASCII);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,67 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Each node is placed on the ring at VIRTUAL_NODES points, and a key belongs to the first
+ * point at or after its hash. Adding or removing a node only moves the keys of its own points.
+ */
+public final class ConsistentHashRing {
+
+    static final int VIRTUAL_NODES = 128;
+
+    private final List<NodeAddress> nodes;
+    private final long[] points;
+    private final NodeAddress[] owners;
+
+    public ConsistentHashRing(Collection<NodeAddress> nodes) {
+        this.nodes = nodes.stream().distinct().sorted(Comparator.comparing(NodeAddress::toString)).toList();
+        var entries = new long[this.nodes.size() * VIRTUAL_NODES][];
+        int index = 0;
+        for (int node = 0; node < this.nodes.size(); node++) {
+            for (int virtualNode = 0; virtualNode < VIRTUAL_NODES; virtualNode++) {
+                entries[index++] = new long[]{hash(this.nodes.get(node) + "#" + virtualNode), node};
+            }
+        }
+        Arrays.sort(entries, Comparator.comparingLong(entry -> entry[0]));
+        this.points = new long[entries.length];
+        this.owners = new NodeAddress[entries.length];
+        for (int point = 0; point < entries.length; point++) {
+            points[point] = entries[point][0];
+            owners[point] = this.nodes.get((int) entries[point][1]);
+        }
+    }
+
+    public NodeAddress ownerOf(String key) {
+        if (points.length == 0) {
+            throw new IllegalStateException("The ring has no node");
+        }
+        int index = Arrays.binarySearch(points, hash(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<NodeAddress> nodes() {
+        return nodes;
+    }
+
+    // FNV-1a followed by the murmur3 finalizer, so that close keys land far apart on the ring
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int index = 0; index < key.length(); index++) {
+            hash ^= key.charAt(index);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
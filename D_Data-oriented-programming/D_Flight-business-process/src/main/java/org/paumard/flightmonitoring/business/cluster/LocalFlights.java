@@ -0,0 +1,21 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+/**
+ * What a cluster node needs from the flights of its own JVM: following the flights it owns,
+ * and keeping a replica of the prices of the flights owned by other nodes.
+ */
+public interface LocalFlights {
+
+    void follow(IDFlight idFlight);
+
+    void unfollow(IDFlight idFlight);
+
+    FlightSnapshot snapshot(IDFlight idFlight);
+
+    void updateReplica(IDFlight idFlight, int price);
+
+    void evictReplica(IDFlight idFlight);
+}
@@ -0,0 +1,53 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.paumard.flightmonitoring.business.FlightMonitoring;
+import org.paumard.flightmonitoring.business.MonitoringSession;
+import org.paumard.flightmonitoring.db.FlightDBService;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+
+/**
+ * The flights a node owns are followed in a session of its own, so that they share
+ * the subscriptions of the other followers of this JVM instead of taking them over.
+ */
+public class MonitoredFlights implements LocalFlights, AutoCloseable {
+
+    private final FlightMonitoring flightMonitoring;
+    private final MonitoringSession session;
+    private final FlightDBService dbService = FlightDBService.getInstance();
+
+    public MonitoredFlights(FlightMonitoring flightMonitoring) {
+        this.flightMonitoring = flightMonitoring;
+        this.session = flightMonitoring.openSession();
+    }
+
+    @Override
+    public void follow(IDFlight idFlight) {
+        session.followFlight(idFlight);
+    }
+
+    @Override
+    public void unfollow(IDFlight idFlight) {
+        session.unfollowFlight(idFlight);
+    }
+
+    @Override
+    public FlightSnapshot snapshot(IDFlight idFlight) {
+        return dbService.fetchFlight(idFlight).snapshot();
+    }
+
+    @Override
+    public void updateReplica(IDFlight idFlight, int price) {
+        flightMonitoring.updateReplicaPrice(idFlight, price);
+    }
+
+    @Override
+    public void evictReplica(IDFlight idFlight) {
+        dbService.evictFlight(idFlight);
+    }
+
+    @Override
+    public void close() {
+        session.close();
+    }
+}
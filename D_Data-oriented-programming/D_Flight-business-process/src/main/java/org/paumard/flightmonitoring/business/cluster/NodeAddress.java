@@ -0,0 +1,26 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import java.util.Objects;
+
+public record NodeAddress(String host, int port) {
+
+    public NodeAddress {
+        Objects.requireNonNull(host);
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("Invalid port " + port);
+        }
+    }
+
+    public static NodeAddress parse(String address) {
+        int colon = address.lastIndexOf(':');
+        if (colon <= 0) {
+            throw new IllegalArgumentException("Expected host:port, got " + address);
+        }
+        return new NodeAddress(address.substring(0, colon), Integer.parseInt(address.substring(colon + 1)));
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
@@ -0,0 +1,109 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Messages are queued and written by a dedicated virtual thread, so that sending never
+ * blocks the caller, even while it holds the node lock. The queue is bounded: a peer
+ * that does not read its messages fast enough is disconnected, and its follows are
+ * moved by the next rebalance.
+ */
+final class PeerConnection implements AutoCloseable {
+
+    private static final byte[] CLOSED = new byte[0];
+    private static final int OUTBOX_CAPACITY = Integer.getInteger("flightmonitoring.cluster.outbox-capacity", 4_096);
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final OutputStream out;
+    private final LinkedBlockingQueue<byte[]> outbox = new LinkedBlockingQueue<>(OUTBOX_CAPACITY);
+    private volatile NodeAddress peer;
+    private volatile boolean closed;
+
+    PeerConnection(Socket socket) throws IOException {
+        socket.setTcpNoDelay(true);
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        this.out = new BufferedOutputStream(socket.getOutputStream());
+    }
+
+    NodeAddress peer() {
+        return peer;
+    }
+
+    void peer(NodeAddress peer) {
+        this.peer = peer;
+    }
+
+    void start(BiConsumer<PeerConnection, ClusterMessage> handler, Consumer<PeerConnection> onClose) {
+        Thread.ofVirtual().name("cluster-writer").start(this::writeLoop);
+        Thread.ofVirtual().name("cluster-reader").start(() -> {
+            try {
+                while (!closed) {
+                    handler.accept(this, ClusterProtocol.read(in));
+                }
+            } catch (IOException e) {
+                // the peer is gone, or this connection was closed
+            } finally {
+                close();
+                onClose.accept(this);
+            }
+        });
+    }
+
+    void send(ClusterMessage message) {
+        if (!closed && !outbox.offer(ClusterProtocol.encode(message))) {
+            System.err.println("Cluster peer " + peer + " is too slow, disconnecting");
+            close();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                var frame = outbox.take();
+                do {
+                    if (frame == CLOSED) {
+                        out.flush();
+                        return;
+                    }
+                    out.write(frame);
+                    frame = outbox.poll();
+                } while (frame != null);
+                out.flush();
+            }
+        } catch (IOException | InterruptedException e) {
+            // the peer is gone, or this connection was closed
+        } finally {
+            close();
+        }
+    }
+
+    // queued messages are written before the socket is closed, unless the outbox is full
+    void closeGracefully() {
+        closed = true;
+        if (!outbox.offer(CLOSED)) {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        // wakes up the writer, if the outbox is full the closed socket does
+        outbox.offer(CLOSED);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // already closed
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package org.paumard.flightmonitoring.business.event;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("org.paumard.flightmonitoring.DisplayFrame")
+@Label("Display Frame")
+@Description("One refresh of the monitored flights on the display")
+@Category({"Flight Monitoring", "Display"})
+@Threshold("0 ms")
+@StackTrace(false)
+public class DisplayFrameEvent extends Event {
+
+    private static final EventType TYPE = EventType.getEventType(DisplayFrameEvent.class);
+
+    public static boolean enabled() {
+        return TYPE.isEnabled();
+    }
+
+    @Label("Display Mode")
+    public String mode;
+
+    @Label("Flights Displayed")
+    public int flightsDisplayed;
+}
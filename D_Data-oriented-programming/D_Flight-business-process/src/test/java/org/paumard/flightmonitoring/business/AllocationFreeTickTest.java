@@ -0,0 +1,44 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+
+import java.lang.management.ManagementFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AllocationFreeTickTest {
+
+    private static final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void steady_state_tick_allocates_nothing() {
+        var flightMonitoring = new FlightMonitoring();
+        var cities = new String[]{"Pa", "Lo", "Am", "Fr", "NY", "Wa", "At", "Mi"};
+        for (var from : cities) {
+            for (var to : cities) {
+                if (!from.equals(to)) {
+                    var flight = IDFlight.of(from + to);
+                    flightMonitoring.followFlight(flight);
+                    flightMonitoring.monitorFlight(flight);
+                }
+            }
+        }
+        var priceMonitoringService = FlightPriceMonitoringService.getInstance();
+
+        for (int i = 0; i < 50_000; i++) {
+            priceMonitoringService.tick();
+        }
+
+        int ticks = 10_000;
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ticks; i++) {
+            priceMonitoringService.tick();
+        }
+        long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated / ticks).isZero();
+    }
+}
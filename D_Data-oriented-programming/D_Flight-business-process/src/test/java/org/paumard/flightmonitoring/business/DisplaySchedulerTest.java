@@ -0,0 +1,76 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class DisplaySchedulerTest {
+
+    @Test
+    public void caps_the_frame_rate() throws InterruptedException {
+        var frames = new AtomicInteger();
+        try (var scheduler = new DisplayScheduler(frames::incrementAndGet, 20, Duration.ofSeconds(1))) {
+            scheduler.start();
+            Thread.sleep(500);
+            assertThat(scheduler.interval().toMillis()).isEqualTo(50);
+            assertThat(scheduler.droppedFrames()).isZero();
+        }
+        assertThat(frames.get()).isBetween(5, 12);
+    }
+
+    @Test
+    public void slows_down_when_frames_fall_behind() throws InterruptedException {
+        var frames = new AtomicInteger();
+        Runnable slowFrame = () -> {
+            frames.incrementAndGet();
+            try {
+                Thread.sleep(30);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        try (var scheduler = new DisplayScheduler(slowFrame, 100, Duration.ofMillis(200))) {
+            scheduler.start();
+            Thread.sleep(500);
+            assertThat(scheduler.interval().toMillis()).isGreaterThanOrEqualTo(60);
+            assertThat(scheduler.droppedFrames()).isPositive();
+        }
+        assertThat(frames.get()).isLessThan(17);
+    }
+
+    @Test
+    public void close_stops_the_display_thread() throws InterruptedException {
+        var frames = new AtomicInteger();
+        var scheduler = new DisplayScheduler(frames::incrementAndGet, 50, Duration.ofSeconds(1));
+        scheduler.start();
+        Thread.sleep(100);
+        scheduler.close();
+        int count = frames.get();
+        Thread.sleep(100);
+        assertThat(frames.get()).isEqualTo(count);
+    }
+
+    @Test
+    public void a_failing_frame_does_not_stop_the_display_thread() throws InterruptedException {
+        var frames = new AtomicInteger();
+        Runnable failingFrame = () -> {
+            frames.incrementAndGet();
+            throw new AssertionError("frame failed");
+        };
+        try (var scheduler = new DisplayScheduler(failingFrame, 50, Duration.ofSeconds(1))) {
+            scheduler.start();
+            Thread.sleep(200);
+        }
+        assertThat(frames.get()).isGreaterThan(1);
+    }
+
+    @Test
+    public void rejects_a_non_positive_frame_rate() {
+        assertThatThrownBy(() -> new DisplayScheduler(() -> {}, 0, Duration.ofSeconds(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,91 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.FlightDBService;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.metrics.Gauge;
+import org.paumard.flightmonitoring.metrics.MetricsRegistry;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightLifecycleSoakTest {
+
+    // a few seconds per million cycles, lower it with -Dflightmonitoring.soak.cycles for a quick run
+    private static final int CYCLES = Integer.getInteger("flightmonitoring.soak.cycles", 2_000_000);
+    // each cycle interns a new id, the ones still waiting for the GC stay under this bound
+    private static final int CANONICAL_IDS_SLACK = 1_000;
+
+    private final FlightMonitoring flightMonitoring = new FlightMonitoring();
+    private final FlightDBService dbService = FlightDBService.getInstance();
+    private final FlightPriceMonitoringService priceMonitoringService = FlightPriceMonitoringService.getInstance();
+
+    private static long gauge(String name) {
+        return ((Gauge) MetricsRegistry.getInstance().metrics().get(name)).value().getAsLong();
+    }
+
+    // the canonical ids released by the GC are queued by another thread, and purged by the next intern
+    private static void purgeReleasedIds(int bound) throws InterruptedException {
+        for (int attempt = 0; attempt < 10 && (IDFlight.canonicalCount() > bound || FlightID.canonicalCount() > bound); attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            IDFlight.of("AmAt-purge-" + attempt);
+            FlightID.of("AmAt-purge-" + attempt);
+        }
+    }
+
+    @Test
+    public void nothing_is_retained_across_follow_unfollow_cycles() throws Exception {
+        int cachedBefore = dbService.cachedFlights();
+        int routedBefore = dbService.routedFlights();
+        int followedBefore = priceMonitoringService.followedFlights();
+        int monitoredBefore = flightMonitoring.monitoredFlights().size();
+        long subscriptionsBefore = gauge("monitoring.subscriptions");
+        long followedIdsBefore = gauge("monitoring.followed");
+        int canonicalBound = Math.max(IDFlight.canonicalCount(), FlightID.canonicalCount()) + CANONICAL_IDS_SLACK;
+        var running = new AtomicBoolean(true);
+
+        try (var ticker = Executors.newSingleThreadExecutor()) {
+            var ticks = ticker.submit(() -> {
+                long count = 0L;
+                while (running.get()) {
+                    priceMonitoringService.tick();
+                    count++;
+                }
+                return count;
+            });
+
+            for (int cycle = 0; cycle < CYCLES; cycle++) {
+                // a new id on each cycle, between two known cities, so that a leaked id or route edge adds up
+                var route = IDFlight.of("AmAt-" + cycle);
+                flightMonitoring.followFlight(route);
+                flightMonitoring.monitorFlight(route);
+                if (cycle % 3 == 0) {
+                    flightMonitoring.unfollowFlight(route);
+                    flightMonitoring.unmonitorFlight(route);
+                } else {
+                    flightMonitoring.unmonitorFlight(route);
+                    flightMonitoring.unfollowFlight(route);
+                }
+            }
+            running.set(false);
+
+            assertThat(ticks.get(10, TimeUnit.SECONDS)).isPositive();
+        }
+        purgeReleasedIds(canonicalBound);
+
+        assertThat(dbService.cachedFlights()).isEqualTo(cachedBefore);
+        assertThat(dbService.routedFlights()).isEqualTo(routedBefore);
+        assertThat(priceMonitoringService.followedFlights()).isEqualTo(followedBefore);
+        assertThat(flightMonitoring.monitoredFlights()).hasSize(monitoredBefore);
+        assertThat(gauge("monitoring.subscriptions")).isEqualTo(subscriptionsBefore);
+        assertThat(gauge("monitoring.followed")).isEqualTo(followedIdsBefore);
+        assertThat(IDFlight.canonicalCount()).isLessThanOrEqualTo(canonicalBound);
+        assertThat(FlightID.canonicalCount()).isLessThanOrEqualTo(canonicalBound);
+    }
+}
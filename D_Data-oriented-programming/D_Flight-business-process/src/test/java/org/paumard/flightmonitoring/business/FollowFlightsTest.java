@@ -0,0 +1,97 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FollowFlightsTest {
+
+    private final FlightMonitoring flightMonitoring = new FlightMonitoring();
+    private final FlightPriceMonitoringService priceMonitoringService = FlightPriceMonitoringService.getInstance();
+
+    private static boolean isFollowed(FlightPriceMonitoringService service, IDFlight idFlight) {
+        return service.isFollowing(FlightID.of(idFlight.flightId()));
+    }
+
+    @Test
+    public void follows_many_flights_in_parallel() throws InterruptedException {
+        var routes = IntStream.range(0, 500)
+                .mapToObj(i -> IDFlight.of("NYPa-bulk-" + i))
+                .toList();
+
+        flightMonitoring.followFlights(routes);
+
+        assertThat(routes.stream().allMatch(route -> isFollowed(priceMonitoringService, route))).isTrue();
+        routes.forEach(flightMonitoring::unfollowFlight);
+        assertThat(routes.stream().noneMatch(route -> isFollowed(priceMonitoringService, route))).isTrue();
+    }
+
+    @Test
+    public void a_failing_follow_rolls_back_the_others() {
+        var routes = new ArrayList<IDFlight>(IntStream.range(0, 100)
+                .mapToObj(i -> IDFlight.of("MiLo-bulk-" + i))
+                .toList());
+        routes.add(50, IDFlight.of("?"));
+
+        assertThatThrownBy(() -> flightMonitoring.followFlights(routes))
+                .isInstanceOf(StringIndexOutOfBoundsException.class);
+
+        assertThat(routes.stream().noneMatch(route -> isFollowed(priceMonitoringService, route))).isTrue();
+    }
+
+    @Test
+    public void a_failing_follow_keeps_the_flights_followed_before() {
+        var followedBefore = IDFlight.of("LoPa-bulk-before");
+        flightMonitoring.followFlight(followedBefore);
+        var routes = List.of(followedBefore, IDFlight.of("LoPa-bulk-new"), IDFlight.of("?"));
+
+        assertThatThrownBy(() -> flightMonitoring.followFlights(routes))
+                .isInstanceOf(StringIndexOutOfBoundsException.class);
+
+        assertThat(isFollowed(priceMonitoringService, followedBefore)).isTrue();
+        assertThat(isFollowed(priceMonitoringService, routes.get(1))).isFalse();
+        flightMonitoring.unfollowFlight(followedBefore);
+    }
+
+    @Test
+    public void a_failed_follow_can_be_retried() {
+        var idFlight = IDFlight.of("?");
+
+        assertThatThrownBy(() -> flightMonitoring.followFlight(idFlight))
+                .isInstanceOf(StringIndexOutOfBoundsException.class);
+        assertThatThrownBy(() -> flightMonitoring.followFlight(idFlight))
+                .isInstanceOf(StringIndexOutOfBoundsException.class);
+    }
+
+    @Test
+    public void close_stops_the_executors_it_started() throws InterruptedException {
+        var threadsBefore = Thread.getAllStackTraces().keySet();
+        Set<Thread> started;
+        try (var running = FlightMonitoring.getInstance()) {
+            started = new HashSet<>(Thread.getAllStackTraces().keySet());
+            started.removeAll(threadsBefore);
+            // carrier threads of the virtual thread scheduler are shared by the whole JVM
+            started.removeIf(thread -> thread.getName().startsWith("ForkJoinPool"));
+            assertThat(started.isEmpty()).isFalse();
+
+            // only the instance that started the shared services stops them
+            FlightMonitoring.getInstance().close();
+            assertThat(started.stream().allMatch(Thread::isAlive)).isTrue();
+        }
+        // a terminated pool may still be unwinding its last worker
+        for (var thread : started) {
+            thread.join(1_000);
+        }
+        assertThat(started.stream().noneMatch(Thread::isAlive)).isTrue();
+    }
+}
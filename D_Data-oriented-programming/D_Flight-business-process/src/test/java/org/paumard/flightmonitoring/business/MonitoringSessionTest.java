@@ -0,0 +1,70 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+import org.paumard.flightmonitoring.pricemonitoring.model.FlightID;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MonitoringSessionTest {
+
+    private final FlightMonitoring flightMonitoring = new FlightMonitoring();
+    private final FlightPriceMonitoringService priceMonitoringService = FlightPriceMonitoringService.getInstance();
+
+    private final List<IDFlight> routes = IntStream.range(0, 10)
+            .mapToObj(i -> IDFlight.of("PaMi-session-" + i))
+            .toList();
+
+    @Test
+    public void sessions_share_one_subscription_per_route() {
+        int followedBefore = priceMonitoringService.followedFlights();
+        var sessions = new ArrayList<MonitoringSession>();
+        for (int i = 0; i < 1_000; i++) {
+            var session = flightMonitoring.openSession();
+            routes.forEach(session::followFlight);
+            routes.forEach(session::followFlight);
+            sessions.add(session);
+        }
+
+        assertThat(priceMonitoringService.followedFlights()).isEqualTo(followedBefore + routes.size());
+        priceMonitoringService.tick();
+        var first = sessions.getFirst().followedFlights();
+        var last = sessions.getLast().followedFlights();
+        assertThat(first).hasSize(routes.size());
+        assertThat(first.stream().map(flight -> flight.id().flightId() + "=" + flight.price().price()).sorted().toList())
+                .isEqualTo(last.stream().map(flight -> flight.id().flightId() + "=" + flight.price().price()).sorted().toList());
+
+        for (var session : sessions.subList(1, sessions.size())) {
+            session.close();
+        }
+        assertThat(priceMonitoringService.isFollowing(FlightID.of(routes.getFirst().flightId()))).isTrue();
+
+        sessions.getFirst().close();
+        for (var route : routes) {
+            assertThat(priceMonitoringService.isFollowing(FlightID.of(route.flightId()))).isFalse();
+        }
+        assertThat(priceMonitoringService.followedFlights()).isEqualTo(followedBefore);
+    }
+
+    @Test
+    public void unfollowing_in_one_session_keeps_the_others_subscribed() {
+        var route = IDFlight.of("LoNY-session");
+        try (var alice = flightMonitoring.openSession();
+             var bob = flightMonitoring.openSession()) {
+            alice.followFlight(route);
+            bob.followFlight(route);
+
+            alice.unfollowFlight(route);
+
+            assertThat(alice.followedFlights()).isEmpty();
+            assertThat(bob.followedFlights()).hasSize(1);
+            assertThat(priceMonitoringService.isFollowing(FlightID.of(route.flightId()))).isTrue();
+        }
+        assertThat(priceMonitoringService.isFollowing(FlightID.of(route.flightId()))).isFalse();
+    }
+}
@@ -0,0 +1,100 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RankedFlightsTest {
+
+    private static final City paris = new City("Paris");
+    private static final City miami = new City("Miami");
+
+    private static Flight flight(String id, int price) {
+        return new Flight(IDFlight.of(id), paris, miami, Price.of(price), new Plane("Airbus A350"));
+    }
+
+    private static List<String> cheapest(RankedFlights rankedFlights, int count) {
+        var ids = new ArrayList<String>();
+        rankedFlights.forEachCheapest(count, flight -> ids.add(flight.id().flightId()));
+        return ids;
+    }
+
+    @Test
+    public void reads_the_cheapest_flights_first() {
+        var rankedFlights = new RankedFlights();
+        rankedFlights.update(flight("PaMi-1", 300));
+        rankedFlights.update(flight("PaMi-2", 100));
+        rankedFlights.update(flight("PaMi-3", 200));
+
+        assertThat(cheapest(rankedFlights, 2)).containsExactly("PaMi-2", "PaMi-3");
+        assertThat(cheapest(rankedFlights, 10)).containsExactly("PaMi-2", "PaMi-3", "PaMi-1");
+    }
+
+    @Test
+    public void an_updated_price_moves_the_flight() {
+        var rankedFlights = new RankedFlights();
+        var expensive = flight("PaMi-1", 300);
+        rankedFlights.update(expensive);
+        rankedFlights.update(flight("PaMi-2", 100));
+
+        expensive.updatePrice(50);
+        rankedFlights.update(expensive);
+
+        assertThat(cheapest(rankedFlights, 10)).containsExactly("PaMi-1", "PaMi-2");
+        assertThat(rankedFlights.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void flights_with_the_same_price_are_all_kept() {
+        var rankedFlights = new RankedFlights();
+        rankedFlights.update(flight("PaMi-2", 100));
+        rankedFlights.update(flight("PaMi-1", 100));
+
+        assertThat(cheapest(rankedFlights, 10)).containsExactly("PaMi-1", "PaMi-2");
+    }
+
+    @Test
+    public void a_removed_flight_is_no_longer_ranked() {
+        var rankedFlights = new RankedFlights();
+        var removed = flight("PaMi-1", 100);
+        rankedFlights.update(removed);
+        rankedFlights.update(flight("PaMi-2", 200));
+
+        rankedFlights.remove(removed);
+
+        assertThat(cheapest(rankedFlights, 10)).containsExactly("PaMi-2");
+        assertThat(rankedFlights.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void matches_a_full_sort_after_random_updates() {
+        var rankedFlights = new RankedFlights();
+        var random = new Random(314L);
+        var flights = new ArrayList<Flight>();
+        for (int i = 0; i < 1_000; i++) {
+            var flight = flight("PaMi-random-" + i, random.nextInt(500));
+            flights.add(flight);
+            rankedFlights.update(flight);
+        }
+        for (int i = 0; i < 10_000; i++) {
+            var flight = flights.get(random.nextInt(flights.size()));
+            flight.updatePrice(random.nextInt(500));
+            rankedFlights.update(flight);
+        }
+
+        var expected = flights.stream()
+                .sorted((flight1, flight2) -> flight1.price().price() != flight2.price().price() ?
+                        Integer.compare(flight1.price().price(), flight2.price().price()) :
+                        flight1.id().flightId().compareTo(flight2.id().flightId()))
+                .limit(20)
+                .map(flight -> flight.id().flightId())
+                .toList();
+        assertThat(cheapest(rankedFlights, 20)).isEqualTo(expected);
+        assertThat(rankedFlights.size()).isEqualTo(1_000);
+    }
+}
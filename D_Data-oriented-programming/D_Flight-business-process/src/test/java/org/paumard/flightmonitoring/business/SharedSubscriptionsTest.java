@@ -0,0 +1,65 @@
+package org.paumard.flightmonitoring.business;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SharedSubscriptionsTest {
+
+    private final IDFlight paMi = IDFlight.of("PaMi");
+    private final Flight flight = new Flight(paMi, new City("Paris"), new City("Miami"), new Price(100), new Plane("Airbus A350"));
+
+    @Test
+    public void subscribes_outside_of_the_lock_of_the_subscription() throws InterruptedException {
+        var subscribing = new CountDownLatch(1);
+        var database = new CountDownLatch(1);
+        var subscribes = new AtomicInteger();
+        var subscriptions = new SharedSubscriptions(idFlight -> {
+            subscribes.incrementAndGet();
+            subscribing.countDown();
+            try {
+                database.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return flight;
+        }, _ -> {
+        });
+
+        var first = Thread.ofVirtual().start(() -> subscriptions.acquire(paMi));
+        subscribing.await();
+        var second = Thread.ofVirtual().start(() -> subscriptions.acquire(paMi));
+        while (subscriptions.references(paMi) < 2) {
+            Thread.sleep(1);
+        }
+        database.countDown();
+        first.join();
+        second.join();
+
+        assertThat(subscribes.get()).isEqualTo(1);
+        assertThat(subscriptions.references(paMi)).isEqualTo(2);
+    }
+
+    @Test
+    public void a_failed_subscribe_can_be_retried() {
+        var attempts = new AtomicInteger();
+        var subscriptions = new SharedSubscriptions(idFlight -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("Database unavailable");
+            }
+            return flight;
+        }, _ -> {
+        });
+
+        assertThatThrownBy(() -> subscriptions.acquire(paMi)).isInstanceOf(IllegalStateException.class);
+        assertThat(subscriptions.references(paMi)).isEqualTo(0);
+        assertThat(subscriptions.acquire(paMi)).isSameAs(flight);
+        assertThat(subscriptions.release(paMi)).isTrue();
+        assertThat(subscriptions.size()).isEqualTo(0);
+    }
+}
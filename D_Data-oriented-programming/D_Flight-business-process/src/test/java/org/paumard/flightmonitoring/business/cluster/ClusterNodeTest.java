@@ -0,0 +1,209 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.db.model.FlightSnapshot;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.db.model.Price;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ClusterNodeTest {
+
+    private static final Duration PUBLISH_INTERVAL = Duration.ofMillis(20);
+
+    private final List<ClusterNode> nodes = new ArrayList<>();
+    private final List<IDFlight> flights = IntStream.range(0, 60).mapToObj(i -> IDFlight.of("PaMi-cluster-" + i)).toList();
+
+    static class FakeFlights implements LocalFlights {
+        final Map<String, FlightSnapshot> followed = new ConcurrentHashMap<>();
+        final Map<String, Integer> replicas = new ConcurrentHashMap<>();
+
+        @Override
+        public void follow(IDFlight idFlight) {
+            followed.put(idFlight.flightId(), new FlightSnapshot(idFlight, null, null, Price.of(100), null, 0L));
+        }
+
+        @Override
+        public void unfollow(IDFlight idFlight) {
+            followed.remove(idFlight.flightId());
+        }
+
+        @Override
+        public FlightSnapshot snapshot(IDFlight idFlight) {
+            return followed.get(idFlight.flightId());
+        }
+
+        @Override
+        public void updateReplica(IDFlight idFlight, int price) {
+            replicas.put(idFlight.flightId(), price);
+        }
+
+        @Override
+        public void evictReplica(IDFlight idFlight) {
+            replicas.remove(idFlight.flightId());
+        }
+
+        void tick(int price) {
+            followed.replaceAll((_, flight) ->
+                    new FlightSnapshot(flight.id(), null, null, Price.of(price), null, flight.version() + 1));
+        }
+    }
+
+    private ClusterNode startNode(FakeFlights flights, ClusterNode... seeds) throws IOException {
+        var node = ClusterNode.start("localhost", 0,
+                List.of(seeds).stream().map(ClusterNode::address).toList(), flights, PUBLISH_INTERVAL);
+        nodes.add(node);
+        return node;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Condition not met in time");
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    public void closeNodes() throws Exception {
+        for (var node : nodes) {
+            node.close();
+        }
+    }
+
+    @Test
+    public void owners_follow_the_flights_and_publish_their_prices() throws Exception {
+        var flightsA = new FakeFlights();
+        var flightsB = new FakeFlights();
+        var flightsC = new FakeFlights();
+        var a = startNode(flightsA);
+        var b = startNode(flightsB, a);
+        var c = startNode(flightsC, a);
+        await(() -> a.members().size() == 3 && b.members().size() == 3 && c.members().size() == 3);
+
+        flights.forEach(a::followFlight);
+        await(() -> flightsA.followed.size() + flightsB.followed.size() + flightsC.followed.size() == flights.size());
+        flightsB.tick(110);
+        flightsC.tick(110);
+        flightsA.tick(110);
+
+        await(() -> flights.stream()
+                .filter(flight -> !a.ownerOf(flight).equals(a.address()))
+                .allMatch(flight -> Integer.valueOf(110).equals(flightsA.replicas.get(flight.flightId()))));
+        for (var flight : flights) {
+            var owner = a.ownerOf(flight);
+            var ownerFlights = owner.equals(a.address()) ? flightsA : owner.equals(b.address()) ? flightsB : flightsC;
+            assertThat(ownerFlights.followed.containsKey(flight.flightId())).isTrue();
+            assertThat(b.ownerOf(flight)).isEqualTo(owner);
+        }
+        assertThat(flightsB.followed.isEmpty()).isFalse();
+        assertThat(flightsC.followed.isEmpty()).isFalse();
+
+        flights.forEach(a::unfollowFlight);
+        await(() -> flightsA.followed.isEmpty() && flightsB.followed.isEmpty() && flightsC.followed.isEmpty());
+        assertThat(flightsA.replicas.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void the_flights_of_a_leaving_node_move_to_the_others() throws Exception {
+        var flightsA = new FakeFlights();
+        var flightsB = new FakeFlights();
+        var flightsC = new FakeFlights();
+        var a = startNode(flightsA);
+        var b = startNode(flightsB, a);
+        var c = startNode(flightsC, a);
+        await(() -> a.members().size() == 3 && b.members().size() == 3 && c.members().size() == 3);
+        flights.forEach(a::followFlight);
+        await(() -> !flightsC.followed.isEmpty());
+
+        nodes.remove(c);
+        c.close();
+        await(() -> a.members().size() == 2 && b.members().size() == 2);
+
+        await(() -> flightsA.followed.size() + flightsB.followed.size() == flights.size());
+        flightsA.tick(90);
+        flightsB.tick(90);
+        await(() -> flights.stream()
+                .filter(flight -> !a.ownerOf(flight).equals(a.address()))
+                .allMatch(flight -> Integer.valueOf(90).equals(flightsA.replicas.get(flight.flightId()))));
+        assertThat(flightsC.followed.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void a_joining_node_takes_over_part_of_the_flights() throws Exception {
+        var flightsA = new FakeFlights();
+        var flightsB = new FakeFlights();
+        var flightsC = new FakeFlights();
+        var a = startNode(flightsA);
+        var b = startNode(flightsB, a);
+        await(() -> a.members().size() == 2 && b.members().size() == 2);
+        flights.forEach(b::followFlight);
+        await(() -> flightsA.followed.size() + flightsB.followed.size() == flights.size());
+
+        var c = startNode(flightsC, b);
+        await(() -> a.members().size() == 3 && b.members().size() == 3 && c.members().size() == 3);
+
+        await(() -> !flightsC.followed.isEmpty()
+                && flightsA.followed.size() + flightsB.followed.size() + flightsC.followed.size() == flights.size());
+        assertThat(c.ownedFlights()).isEqualTo(flightsC.followed.keySet());
+        flightsC.tick(120);
+        await(() -> flightsC.followed.keySet().stream()
+                .allMatch(flight -> Integer.valueOf(120).equals(flightsB.replicas.get(flight))));
+    }
+
+    @Test
+    public void a_failing_start_releases_the_port() throws Exception {
+        var unreachable = new NodeAddress("localhost", 1);
+        int port;
+        try (var probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+
+        assertThatThrownBy(() -> ClusterNode.start("localhost", port, List.of(unreachable), new FakeFlights(), PUBLISH_INTERVAL))
+                .isInstanceOf(UncheckedIOException.class);
+
+        try (var rebound = new ServerSocket(port)) {
+            assertThat(rebound.getLocalPort()).isEqualTo((long) port);
+        }
+    }
+
+    @Test
+    public void publication_goes_on_after_a_failure() throws Exception {
+        var failures = new AtomicInteger(3);
+        var flightsA = new FakeFlights() {
+            @Override
+            public FlightSnapshot snapshot(IDFlight idFlight) {
+                if (failures.getAndDecrement() > 0) {
+                    throw new IllegalStateException("Database unavailable");
+                }
+                return super.snapshot(idFlight);
+            }
+        };
+        var flightsB = new FakeFlights();
+        var a = startNode(flightsA);
+        var b = startNode(flightsB, a);
+        await(() -> a.members().size() == 2 && b.members().size() == 2);
+        var flight = flights.stream().filter(id -> a.ownerOf(id).equals(a.address())).findFirst().orElseThrow();
+
+        b.followFlight(flight);
+
+        await(() -> Integer.valueOf(100).equals(flightsB.replicas.get(flight.flightId())));
+        assertThat(failures.get()).isLessThan(0L);
+    }
+}
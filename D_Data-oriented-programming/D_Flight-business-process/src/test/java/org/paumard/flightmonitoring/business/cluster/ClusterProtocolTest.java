@@ -0,0 +1,90 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.business.cluster.ClusterMessage.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.StreamCorruptedException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ClusterProtocolTest {
+
+    private static ClusterMessage roundTrip(ClusterMessage message) throws IOException {
+        var frame = ClusterProtocol.encode(message);
+        return ClusterProtocol.read(new DataInputStream(new ByteArrayInputStream(frame)));
+    }
+
+    @Test
+    public void decodes_what_it_encodes() throws IOException {
+        var node = new NodeAddress("localhost", 65_000);
+        var messages = List.of(
+                new Hello(node),
+                new Members(List.of(node, new NodeAddress("10.0.0.2", 7001))),
+                new Leave(node),
+                new Follow("PaMi-42"),
+                new Unfollow("PaMi-42"),
+                new Prices(List.of(new PriceUpdate("PaMi", 99), new PriceUpdate("LoNY-7", 120))));
+
+        for (var message : messages) {
+            assertThat(roundTrip(message)).isEqualTo(message);
+        }
+    }
+
+    @Test
+    public void a_price_update_takes_one_byte_more_than_its_id_and_price() {
+        var frame = ClusterProtocol.encode(new Prices(List.of(new PriceUpdate("PaMi", 99), new PriceUpdate("LoNY", 120))));
+
+        assertThat(frame.length).isEqualTo(4 + 1 + 4 + 2 * (1 + 4 + 4));
+    }
+
+    @Test
+    public void rejects_corrupted_frames() {
+        var frame = ClusterProtocol.encode(new Follow("PaMi"));
+        var unknownType = frame.clone();
+        unknownType[4] = 42;
+        var truncated = frame.clone();
+        truncated[5] = 100;
+        var hugeLength = frame.clone();
+        hugeLength[0] = 0x7F;
+
+        for (var corrupted : List.of(unknownType, truncated, hugeLength)) {
+            assertThatThrownBy(() -> ClusterProtocol.read(new DataInputStream(new ByteArrayInputStream(corrupted))))
+                    .isInstanceOf(StreamCorruptedException.class);
+        }
+    }
+
+    @Test
+    public void rejects_ids_longer_than_255_characters() {
+        var id = new char[256];
+        Arrays.fill(id, 'a');
+
+        assertThatThrownBy(() -> ClusterProtocol.encode(new Follow(new String(id))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void splits_the_price_updates_under_the_frame_limit() throws IOException {
+        var updates = IntStream.range(0, 200_000)
+                .mapToObj(i -> new PriceUpdate("PaMi-split-" + i, i))
+                .toList();
+
+        var messages = ClusterProtocol.prices(updates);
+
+        assertThat(messages.size()).isGreaterThan(1L);
+        var decoded = new ArrayList<PriceUpdate>();
+        for (var message : messages) {
+            assertThat(ClusterProtocol.encode(message).length).isLessThanOrEqualTo(ClusterProtocol.MAX_FRAME_SIZE);
+            decoded.addAll(((Prices) roundTrip(message)).updates());
+        }
+        assertThat(decoded).isEqualTo(updates);
+        assertThat(ClusterProtocol.prices(List.of())).isEmpty();
+    }
+}
@@ -0,0 +1,64 @@
+package org.paumard.flightmonitoring.business.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class ConsistentHashRingTest {
+
+    private static final List<String> KEYS = IntStream.range(0, 100_000).mapToObj(i -> "PaMi-" + i).toList();
+
+    private static List<NodeAddress> nodes(int count) {
+        return IntStream.range(0, count).mapToObj(i -> new NodeAddress("localhost", 7000 + i)).toList();
+    }
+
+    @Test
+    public void spreads_the_keys_evenly() {
+        var ring = new ConsistentHashRing(nodes(4));
+        var counts = new HashMap<NodeAddress, Integer>();
+        for (var key : KEYS) {
+            counts.merge(ring.ownerOf(key), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        for (var count : counts.values()) {
+            assertThat(Math.abs(count - KEYS.size() / 4)).isLessThan(KEYS.size() / 20);
+        }
+    }
+
+    @Test
+    public void a_joining_node_only_takes_keys_from_the_others() {
+        var before = new ConsistentHashRing(nodes(4));
+        var after = new ConsistentHashRing(nodes(5));
+        var newNode = nodes(5).getLast();
+
+        long moved = KEYS.stream().filter(key -> !before.ownerOf(key).equals(after.ownerOf(key))).count();
+        long movedElsewhere = KEYS.stream()
+                .filter(key -> !before.ownerOf(key).equals(after.ownerOf(key)))
+                .filter(key -> !after.ownerOf(key).equals(newNode))
+                .count();
+
+        assertThat(movedElsewhere).isZero();
+        assertThat(Math.abs(moved - KEYS.size() / 5)).isLessThan(KEYS.size() / 20);
+    }
+
+    @Test
+    public void does_not_depend_on_the_order_of_the_nodes() {
+        var nodes = nodes(3);
+        var ring = new ConsistentHashRing(nodes);
+        var reversed = new ConsistentHashRing(nodes.reversed());
+
+        assertThat(KEYS.stream().allMatch(key -> ring.ownerOf(key).equals(reversed.ownerOf(key)))).isTrue();
+    }
+
+    @Test
+    public void an_empty_ring_has_no_owner() {
+        assertThatThrownBy(() -> new ConsistentHashRing(List.of()).ownerOf("PaMi"))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,67 @@
+package org.paumard.flightmonitoring.business.event;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.paumard.flightmonitoring.business.FlightMonitoring;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+import org.paumard.flightmonitoring.pricemonitoring.event.ConsumerDeliveryEvent;
+import org.paumard.flightmonitoring.pricemonitoring.event.PriceTickEvent;
+
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlightEventsTest {
+
+    @Test
+    public void records_ticks_and_deliveries_of_followed_flights() throws Exception {
+        var flightMonitoring = new FlightMonitoring();
+        var priceMonitoringService = FlightPriceMonitoringService.getInstance();
+        var flightId = IDFlight.of("WaAt-event");
+        var file = Files.createTempFile("flight-events", ".jfr");
+
+        flightMonitoring.followFlight(flightId);
+        try (var recording = new Recording()) {
+            recording.enable("org.paumard.flightmonitoring.PriceTick").withThreshold(Duration.ZERO);
+            recording.enable("org.paumard.flightmonitoring.ConsumerDelivery").withThreshold(Duration.ZERO);
+            recording.start();
+            priceMonitoringService.tick();
+            priceMonitoringService.tick();
+            recording.stop();
+            recording.dump(file);
+        } finally {
+            flightMonitoring.unfollowFlight(flightId);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+        var ticks = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.paumard.flightmonitoring.PriceTick"))
+                .toList();
+        var deliveries = events.stream()
+                .filter(event -> event.getEventType().getName().equals("org.paumard.flightmonitoring.ConsumerDelivery"))
+                .filter(event -> event.getString("flightId").equals("WaAt-event"))
+                .toList();
+
+        assertThat(ticks).hasSize(2);
+        assertThat(ticks.get(0).getInt("flightsUpdated")).isPositive();
+        assertThat(deliveries).hasSize(2);
+    }
+
+    @Test
+    public void only_per_flight_deliveries_are_off_in_the_default_settings() throws Exception {
+        try (var recording = new Recording(Configuration.getConfiguration("default"))) {
+            recording.start();
+
+            assertThat(PriceTickEvent.enabled()).isTrue();
+            assertThat(DisplayFrameEvent.enabled()).isTrue();
+            assertThat(ConsumerDeliveryEvent.enabled()).isFalse();
+        }
+    }
+}
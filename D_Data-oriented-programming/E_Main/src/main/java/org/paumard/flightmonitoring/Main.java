@@ -1,30 +1,85 @@
 package org.paumard.flightmonitoring;
 
+import org.paumard.flightmonitoring.benchmark.LoadTest;
 import org.paumard.flightmonitoring.business.FlightMonitoring;
-import org.paumard.flightmonitoring.db.model.Flight;
+import org.paumard.flightmonitoring.business.cluster.ClusterNode;
+import org.paumard.flightmonitoring.business.cluster.MonitoredFlights;
 import org.paumard.flightmonitoring.db.model.IDFlight;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
 public class Main {
 
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+
+        RunnerOptions options;
+        try {
+            options = RunnerOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        switch (options.mode()) {
+            case DEMO -> demo();
+            case BENCHMARK -> LoadTest.run(options.flights(), options.duration(), options.warmup())
+                    .print(System.out);
+            case CLUSTER -> cluster(options);
+        }
+    }
+
+    private static void demo() throws InterruptedException {
 
         var flightMonitoring = FlightMonitoring.getInstance();
 
-        var f1 = new IDFlight("PaAt");
-        var f2 = new IDFlight("AmNY");
-        var f3 = new IDFlight("LoMi");
-        var f4 = new IDFlight("FrWa");
+        var f1 = IDFlight.of("PaAt");
+        var f2 = IDFlight.of("AmNY");
+        var f3 = IDFlight.of("LoMi");
+        var f4 = IDFlight.of("FrWa");
 
-        flightMonitoring.followFlight(f1);
-        flightMonitoring.followFlight(f2);
-        flightMonitoring.followFlight(f3);
-        flightMonitoring.followFlight(f4);
+        flightMonitoring.followFlights(List.of(f1, f2, f3, f4));
 
         flightMonitoring.monitorFlight(f3);
         flightMonitoring.monitorFlight(f4);
 
-        while (true) {
+        awaitShutdown(flightMonitoring);
+    }
+
+    private static void cluster(RunnerOptions options) throws IOException, InterruptedException {
+
+        var flightMonitoring = FlightMonitoring.getInstance();
+        var localFlights = new MonitoredFlights(flightMonitoring);
+        var node = ClusterNode.start(options.host(), options.port(), options.seeds(),
+                localFlights, Duration.ofMillis(500));
+        System.out.println("Cluster node listening on " + node.address());
+        node.addPriceListener((idFlight, price, owner) ->
+                System.out.println("Flight " + idFlight.flightId() + " owned by " + owner + ": price is now " + price));
 
+        for (var idFlight : List.of(IDFlight.of("PaAt"), IDFlight.of("AmNY"), IDFlight.of("LoMi"), IDFlight.of("FrWa"))) {
+            node.followFlight(idFlight);
         }
+
+        awaitShutdown(node, localFlights, flightMonitoring);
+    }
+
+    // blocks until the JVM is asked to stop, then closes the services in order
+    private static void awaitShutdown(AutoCloseable... services) throws InterruptedException {
+        var stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                for (var service : services) {
+                    service.close();
+                }
+            } catch (Exception e) {
+                System.err.println("Shutdown failed: " + e);
+            } finally {
+                stopped.countDown();
+            }
+        }));
+        stopped.await();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,76 @@
+package org.paumard.flightmonitoring;
+
+import org.paumard.flightmonitoring.business.cluster.NodeAddress;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+public record RunnerOptions(Mode mode, int flights, Duration duration, Duration warmup,
+                            String host, int port, List<NodeAddress> seeds) {
+
+    public enum Mode {
+        DEMO, BENCHMARK, CLUSTER
+    }
+
+    public RunnerOptions {
+        if (flights <= 0) {
+            throw new IllegalArgumentException("The number of flights should be positive: " + flights);
+        }
+        if (duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("The duration should be positive: " + duration);
+        }
+        if (warmup.isNegative()) {
+            throw new IllegalArgumentException("The warmup should not be negative: " + warmup);
+        }
+        seeds = List.copyOf(seeds);
+    }
+
+    public static RunnerOptions parse(String... args) {
+        var mode = Mode.DEMO;
+        int flights = 10_000;
+        var duration = Duration.ofSeconds(30);
+        var warmup = Duration.ofSeconds(5);
+        var host = "localhost";
+        int port = 7000;
+        List<NodeAddress> seeds = List.of();
+        for (int index = 0; index < args.length; index++) {
+            var option = args[index];
+            var value = option.contains("=") ?
+                    option.substring(option.indexOf('=') + 1) :
+                    valueOf(args, ++index, option);
+            switch (option.contains("=") ? option.substring(0, option.indexOf('=')) : option) {
+                case "--mode" -> mode = Mode.valueOf(value.toUpperCase());
+                case "--flights" -> flights = Integer.parseInt(value);
+                case "--duration" -> duration = Duration.ofSeconds(Long.parseLong(value));
+                case "--warmup" -> warmup = Duration.ofSeconds(Long.parseLong(value));
+                case "--host" -> host = value;
+                case "--port" -> port = Integer.parseInt(value);
+                case "--seeds" -> seeds = Arrays.stream(value.split(",")).map(NodeAddress::parse).toList();
+                default -> throw new IllegalArgumentException("Unknown option " + option + "\n" + usage());
+            }
+        }
+        return new RunnerOptions(mode, flights, duration, warmup, host, port, seeds);
+    }
+
+    private static String valueOf(String[] args, int index, String option) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value for " + option + "\n" + usage());
+        }
+        return args[index];
+    }
+
+    public static String usage() {
+        return """
+                Usage: Main [--mode demo|benchmark|cluster] [--flights N] [--duration SECONDS] [--warmup SECONDS]
+                            [--host HOST] [--port PORT] [--seeds HOST:PORT,...]
+                  --mode      demo displays four flights, benchmark runs a headless load test,
+                              cluster starts a cluster node that follows the four demo flights (default demo)
+                  --flights   number of synthetic flights followed by the benchmark (default 10000)
+                  --duration  measured duration of the benchmark, in seconds (default 30)
+                  --warmup    duration of the benchmark warmup, in seconds (default 5)
+                  --host      address the cluster node listens on (default localhost)
+                  --port      port the cluster node listens on (default 7000)
+                  --seeds     nodes of the cluster to join, none to start a new cluster""";
+    }
+}
@@ -0,0 +1,60 @@
+package org.paumard.flightmonitoring.benchmark;
+
+import org.paumard.flightmonitoring.db.FlightStore;
+import org.paumard.flightmonitoring.db.model.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class FlightStoreBenchmark {
+
+    private static final int KEYS = 100_000;
+    private static final int OPERATIONS_PER_THREAD = 5_000_000;
+
+    public static void main(String[] args) throws Exception {
+
+        var ids = new IDFlight[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            ids[i] = new IDFlight("PaMi" + i);
+        }
+        var store = new FlightStore(id -> new Flight(id, new City("Paris"), new City("Miami"), new Price(100), new Plane("Airbus A350")));
+        for (var id : ids) {
+            store.get(id);
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int threads = 1; threads <= cores; threads *= 2) {
+            run(store, ids, threads); // warmup
+            long opsPerSecond = run(store, ids, threads);
+            System.out.printf("threads = %2d, lookups/s = %,d%n", threads, opsPerSecond);
+        }
+    }
+
+    private static long run(FlightStore store, IDFlight[] ids, int threads) throws Exception {
+        var start = new CountDownLatch(1);
+        try (var executor = Executors.newFixedThreadPool(threads)) {
+            var futures = new ArrayList<Future<Long>>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    long checksum = 0L;
+                    start.await();
+                    for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                        checksum += store.get(ids[random.nextInt(KEYS)]).price().price();
+                    }
+                    return checksum;
+                }));
+            }
+            long begin = System.nanoTime();
+            start.countDown();
+            for (var future : futures) {
+                future.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            return (long) threads * OPERATIONS_PER_THREAD * 1_000_000_000L / elapsed;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package org.paumard.flightmonitoring.benchmark;
+
+import org.paumard.flightmonitoring.business.FlightMonitoring;
+import org.paumard.flightmonitoring.db.model.IDFlight;
+import org.paumard.flightmonitoring.metrics.Histogram;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Follows synthetic flights without any display, and ticks their prices
+ * back to back on the calling thread for the given duration.
+ */
+public class LoadTest {
+
+    private static final String[] CITIES = {"Pa", "Lo", "Am", "Fr", "NY", "Wa", "At", "Mi"};
+
+    private static final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.OperatingSystemMXBean operatingSystemMXBean =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    public record Report(int flights, Duration followTime, Duration elapsed, long ticks, Histogram tickLatency,
+                         long allocatedBytes, long cpuNanos, long gcCount, long gcMillis) {
+
+        public double ticksPerSecond() {
+            return ticks * 1e9 / elapsed.toNanos();
+        }
+
+        public double priceUpdatesPerSecond() {
+            return ticksPerSecond() * flights;
+        }
+
+        public double allocatedBytesPerSecond() {
+            return allocatedBytes * 1e9 / elapsed.toNanos();
+        }
+
+        public double cpuUsage() {
+            return (double) cpuNanos / elapsed.toNanos();
+        }
+
+        public void print(PrintStream out) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            out.printf("flights            %,d (followed in %d ms)%n", flights, followTime.toMillis());
+            out.printf("duration           %,d ms%n", elapsed.toMillis());
+            out.printf("ticks              %,d (%,.1f ticks/s)%n", ticks, ticksPerSecond());
+            out.printf("price updates      %,.0f updates/s%n", priceUpdatesPerSecond());
+            out.printf("tick latency (us)  p50 <= %,.1f  p90 <= %,.1f  p99 <= %,.1f  p99.9 <= %,.1f  max = %,.1f%n",
+                    tickLatency.percentile(50) / 1e3, tickLatency.percentile(90) / 1e3,
+                    tickLatency.percentile(99) / 1e3, tickLatency.percentile(99.9) / 1e3, tickLatency.max() / 1e3);
+            out.printf("allocation         %,.0f bytes/s on the tick thread (%,.1f bytes/tick)%n",
+                    allocatedBytesPerSecond(), ticks == 0 ? 0d : (double) allocatedBytes / ticks);
+            out.printf("cpu                %.2f cores (%.1f%% of %d)%n", cpuUsage(), 100 * cpuUsage() / cores, cores);
+            out.printf("gc                 %d collections, %d ms%n", gcCount, gcMillis);
+        }
+    }
+
+    public static List<IDFlight> syntheticFlights(int count) {
+        var flights = new ArrayList<IDFlight>(count);
+        for (int index = 0; index < count; index++) {
+            var from = CITIES[index % CITIES.length];
+            var to = CITIES[(index / CITIES.length + 1 + index) % CITIES.length];
+            if (from.equals(to)) {
+                to = CITIES[(index + 1) % CITIES.length];
+            }
+            flights.add(IDFlight.of(from + to + "-" + index));
+        }
+        return flights;
+    }
+
+    public static Report run(int flightCount, Duration duration, Duration warmup) throws InterruptedException {
+        var flightMonitoring = new FlightMonitoring();
+        var priceMonitoringService = FlightPriceMonitoringService.getInstance();
+        var flights = syntheticFlights(flightCount);
+
+        long followStart = System.nanoTime();
+        flightMonitoring.followFlights(flights);
+        var followTime = Duration.ofNanos(System.nanoTime() - followStart);
+
+        try {
+            long warmupEnd = System.nanoTime() + warmup.toNanos();
+            while (System.nanoTime() < warmupEnd) {
+                priceMonitoringService.tick();
+            }
+
+            var tickLatency = new Histogram();
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long cpuBefore = operatingSystemMXBean.getProcessCpuTime();
+            long allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            long end = start + duration.toNanos();
+            long ticks = 0;
+            long now = start;
+            while (now < end) {
+                priceMonitoringService.tick();
+                long tickEnd = System.nanoTime();
+                tickLatency.record(tickEnd - now);
+                now = tickEnd;
+                ticks++;
+            }
+            long allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+            long cpu = operatingSystemMXBean.getProcessCpuTime() - cpuBefore;
+
+            return new Report(flightCount, followTime, Duration.ofNanos(now - start), ticks, tickLatency,
+                    allocated, cpu, gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        } finally {
+            flights.forEach(flightMonitoring::unfollowFlight);
+        }
+    }
+
+    private static long gcCount() {
+        long count = 0;
+        for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (var gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(gc.getCollectionTime(), 0);
+        }
+        return millis;
+    }
+}
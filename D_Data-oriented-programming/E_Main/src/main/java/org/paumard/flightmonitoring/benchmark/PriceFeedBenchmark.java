@@ -0,0 +1,64 @@
+package org.paumard.flightmonitoring.benchmark;
+
+import org.paumard.flightmonitoring.business.FlightMonitoring;
+import org.paumard.flightmonitoring.pricemonitoring.FlightPriceMonitoringService;
+import org.paumard.flightmonitoring.pricemonitoring.feed.PriceFeedClient;
+import org.paumard.flightmonitoring.pricemonitoring.feed.PriceFeedServer;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PriceFeedBenchmark {
+
+    private static final int FLIGHTS = 10_000;
+    private static final int CLIENTS = 2;
+    private static final long WARMUP_MILLIS = 3_000L;
+    private static final long MEASURE_MILLIS = 10_000L;
+
+    public static void main(String[] args) throws Exception {
+
+        var flightMonitoring = new FlightMonitoring();
+        var flights = LoadTest.syntheticFlights(FLIGHTS);
+        flightMonitoring.followFlights(flights);
+
+        var frames = ByteBuffer.allocateDirect(64 * 1024);
+        for (int index = 0; frames.remaining() >= PriceFeedClient.frameSize(flights.get(index % FLIGHTS).flightId()); index++) {
+            PriceFeedClient.encode(frames, flights.get(index % FLIGHTS).flightId(), 80 + index % 40);
+        }
+        frames.flip();
+
+        try (var server = PriceFeedServer.start(FlightPriceMonitoringService.getInstance(), new InetSocketAddress("localhost", 0));
+             var executor = Executors.newFixedThreadPool(CLIENTS)) {
+            long end = System.currentTimeMillis() + WARMUP_MILLIS + MEASURE_MILLIS;
+            var clients = new ArrayList<Future<?>>();
+            for (int client = 0; client < CLIENTS; client++) {
+                clients.add(executor.submit(() -> {
+                    try (var feed = new PriceFeedClient(server.address())) {
+                        while (System.currentTimeMillis() < end) {
+                            feed.send(frames.duplicate());
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            Thread.sleep(WARMUP_MILLIS);
+            long framesBefore = server.receivedFrames();
+            long start = System.nanoTime();
+            Thread.sleep(MEASURE_MILLIS);
+            long received = server.receivedFrames() - framesBefore;
+            long elapsed = System.nanoTime() - start;
+            for (var client : clients) {
+                client.get();
+            }
+
+            System.out.printf("flights = %,d, clients = %d, frames/s = %,d%n",
+                    FLIGHTS, CLIENTS, received * 1_000_000_000L / elapsed);
+        } finally {
+            flights.forEach(flightMonitoring::unfollowFlight);
+        }
+    }
+}
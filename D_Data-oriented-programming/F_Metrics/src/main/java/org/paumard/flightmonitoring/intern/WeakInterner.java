@@ -0,0 +1,56 @@
+package org.paumard.flightmonitoring.intern;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * One canonical instance per key, weakly held: the canonical instance of a key that
+ * nothing refers to anymore is released, and its entry removed by a later intern.
+ */
+public final class WeakInterner<T> {
+
+    private final ConcurrentHashMap<String, Canonical<T>> canonicals = new ConcurrentHashMap<>();
+    private final ReferenceQueue<T> released = new ReferenceQueue<>();
+    private final Function<String, T> factory;
+
+    private static final class Canonical<T> extends WeakReference<T> {
+        private final String key;
+
+        private Canonical(String key, T canonical, ReferenceQueue<T> released) {
+            super(canonical, released);
+            this.key = key;
+        }
+    }
+
+    public WeakInterner(Function<String, T> factory) {
+        this.factory = factory;
+    }
+
+    public T intern(String key) {
+        var canonical = canonicals.get(key);
+        var existing = canonical != null ? canonical.get() : null;
+        return existing != null ? existing : create(key);
+    }
+
+    private T create(String key) {
+        for (Object reference; (reference = released.poll()) != null; ) {
+            var canonical = (Canonical<?>) reference;
+            canonicals.remove(canonical.key, canonical);
+        }
+        while (true) {
+            var canonical = canonicals.compute(key, (_, current) ->
+                    current != null && !current.refersTo(null) ? current : new Canonical<>(key, factory.apply(key), released));
+            // a new instance is only reachable from its weak reference until this get
+            var interned = canonical.get();
+            if (interned != null) {
+                return interned;
+            }
+        }
+    }
+
+    public int size() {
+        return canonicals.size();
+    }
+}
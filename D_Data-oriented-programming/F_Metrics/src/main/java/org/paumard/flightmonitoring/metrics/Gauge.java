@@ -0,0 +1,10 @@
+package org.paumard.flightmonitoring.metrics;
+
+import java.util.function.LongSupplier;
+
+public record Gauge(LongSupplier value) implements Metric {
+
+    public long read() {
+        return value.getAsLong();
+    }
+}
@@ -0,0 +1,65 @@
+package org.paumard.flightmonitoring.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Values are counted in power of two buckets: bucket i holds the values in [2^(i-1), 2^i),
+ * so percentiles are upper bounds, within a factor of two of the exact value.
+ */
+public final class Histogram implements Metric {
+
+    private static final int BUCKETS = 64;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKETS];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+
+    public Histogram() {
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            buckets[bucket] = new LongAdder();
+        }
+    }
+
+    public void record(long value) {
+        long positive = Math.max(value, 0L);
+        buckets[Math.min(BUCKETS - Long.numberOfLeadingZeros(positive), BUCKETS - 1)].increment();
+        count.increment();
+        sum.add(positive);
+        max.accumulate(positive);
+    }
+
+    public long count() {
+        return count.sum();
+    }
+
+    public long sum() {
+        return sum.sum();
+    }
+
+    public long max() {
+        return max.get();
+    }
+
+    public long mean() {
+        long count = count();
+        return count == 0 ? 0L : sum() / count;
+    }
+
+    public long percentile(double percentile) {
+        long count = count();
+        if (count == 0) {
+            return 0L;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100d);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += buckets[bucket].sum();
+            if (seen >= rank) {
+                return Math.min(bucket == 0 ? 0L : (1L << bucket) - 1, max());
+            }
+        }
+        return max();
+    }
+}
@@ -0,0 +1,4 @@
+package org.paumard.flightmonitoring.metrics;
+
+public sealed interface Metric permits Counter, Gauge, Histogram {
+}
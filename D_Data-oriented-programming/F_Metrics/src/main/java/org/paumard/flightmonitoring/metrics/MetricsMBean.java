@@ -0,0 +1,97 @@
+package org.paumard.flightmonitoring.metrics;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Counters and gauges are exposed under their own name, histograms as name.count, name.mean,
+ * name.p50, name.p99 and name.max. The attribute list follows the metrics registered so far.
+ */
+class MetricsMBean implements DynamicMBean {
+
+    private static final String[] HISTOGRAM_STATISTICS = {"count", "mean", "p50", "p99", "max"};
+
+    private final Map<String, Metric> metrics;
+
+    MetricsMBean(Map<String, Metric> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object getAttribute(String attribute) throws AttributeNotFoundException {
+        var metric = metrics.get(attribute);
+        if (metric instanceof Counter counter) {
+            return counter.count();
+        }
+        if (metric instanceof Gauge gauge) {
+            return gauge.read();
+        }
+        int dot = attribute.lastIndexOf('.');
+        if (dot > 0 && metrics.get(attribute.substring(0, dot)) instanceof Histogram histogram) {
+            switch (attribute.substring(dot + 1)) {
+                case "count" -> { return histogram.count(); }
+                case "mean" -> { return histogram.mean(); }
+                case "p50" -> { return histogram.percentile(50); }
+                case "p99" -> { return histogram.percentile(99); }
+                case "max" -> { return histogram.max(); }
+                default -> { }
+            }
+        }
+        throw new AttributeNotFoundException(attribute);
+    }
+
+    @Override
+    public AttributeList getAttributes(String[] attributes) {
+        var list = new AttributeList();
+        for (var attribute : attributes) {
+            try {
+                list.add(new Attribute(attribute, getAttribute(attribute)));
+            } catch (AttributeNotFoundException e) {
+                // the metric may have been replaced since the MBeanInfo was read
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+        throw new AttributeNotFoundException("Metrics are read-only: " + attribute.getName());
+    }
+
+    @Override
+    public AttributeList setAttributes(AttributeList attributes) {
+        return new AttributeList();
+    }
+
+    @Override
+    public Object invoke(String actionName, Object[] params, String[] signature) {
+        throw new UnsupportedOperationException(actionName);
+    }
+
+    @Override
+    public MBeanInfo getMBeanInfo() {
+        var attributes = new ArrayList<MBeanAttributeInfo>();
+        for (var entry : metrics.entrySet()) {
+            if (entry.getValue() instanceof Histogram) {
+                for (var statistic : HISTOGRAM_STATISTICS) {
+                    attributes.add(attribute(entry.getKey() + "." + statistic));
+                }
+            } else {
+                attributes.add(attribute(entry.getKey()));
+            }
+        }
+        return new MBeanInfo(MetricsMBean.class.getName(), "Flight monitoring metrics",
+                attributes.toArray(MBeanAttributeInfo[]::new), null, new MBeanOperationInfo[0], null);
+    }
+
+    private static MBeanAttributeInfo attribute(String name) {
+        return new MBeanAttributeInfo(name, "long", name, true, false, false);
+    }
+}
@@ -0,0 +1,122 @@
+package org.paumard.flightmonitoring.metrics;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+public class MetricsRegistry {
+
+    private static final ConcurrentSkipListMap<String, Metric> metrics = new ConcurrentSkipListMap<>();
+    private static ScheduledExecutorService dumpExecutor;
+    private static ObjectName objectName;
+
+    public static MetricsRegistry getInstance() {
+        return new MetricsRegistry();
+    }
+
+    public Counter counter(String name) {
+        return register(name, Counter.class, new Counter());
+    }
+
+    public Histogram histogram(String name) {
+        return register(name, Histogram.class, new Histogram());
+    }
+
+    // a gauge registered again under the same name replaces the previous one
+    public Gauge gauge(String name, LongSupplier value) {
+        var gauge = new Gauge(value);
+        var previous = metrics.put(name, gauge);
+        if (previous != null && !(previous instanceof Gauge)) {
+            metrics.put(name, previous);
+            throw new IllegalArgumentException(name + " is already registered as a " + previous.getClass().getSimpleName());
+        }
+        return gauge;
+    }
+
+    private static <M extends Metric> M register(String name, Class<M> type, M metric) {
+        var registered = metrics.putIfAbsent(name, metric);
+        if (registered == null) {
+            return metric;
+        }
+        if (!type.isInstance(registered)) {
+            throw new IllegalArgumentException(name + " is already registered as a " + registered.getClass().getSimpleName());
+        }
+        return type.cast(registered);
+    }
+
+    public Map<String, Metric> metrics() {
+        return metrics;
+    }
+
+    public void dump(PrintStream out) {
+        var dump = new StringBuilder();
+        for (var entry : metrics.entrySet()) {
+            dump.append(entry.getKey()).append(' ');
+            switch (entry.getValue()) {
+                case Counter counter -> dump.append(counter.count());
+                case Gauge gauge -> dump.append(gauge.read());
+                case Histogram histogram -> dump
+                        .append("count=").append(histogram.count())
+                        .append(" mean=").append(histogram.mean())
+                        .append(" p50=").append(histogram.percentile(50))
+                        .append(" p99=").append(histogram.percentile(99))
+                        .append(" max=").append(histogram.max());
+            }
+            dump.append('\n');
+        }
+        out.print(dump);
+    }
+
+    public void exposeOverJmx() {
+        synchronized (MetricsRegistry.class) {
+            if (objectName != null) {
+                return;
+            }
+            try {
+                var name = new ObjectName("org.paumard.flightmonitoring:type=Metrics");
+                var server = ManagementFactory.getPlatformMBeanServer();
+                if (!server.isRegistered(name)) {
+                    server.registerMBean(new MetricsMBean(metrics), name);
+                }
+                objectName = name;
+            } catch (JMException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    public void startDumping() {
+        long interval = Long.getLong("flightmonitoring.metrics.dump-interval-ms", 0L);
+        if (interval > 0L) {
+            startDumping(interval, System.out);
+        }
+    }
+
+    public void startDumping(long intervalMillis, PrintStream out) {
+        synchronized (MetricsRegistry.class) {
+            if (dumpExecutor == null) {
+                dumpExecutor = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().daemon().name("metrics-dump").factory());
+                dumpExecutor.scheduleAtFixedRate(() -> dump(out), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    public void stopDumping() throws InterruptedException {
+        ScheduledExecutorService executor;
+        synchronized (MetricsRegistry.class) {
+            executor = dumpExecutor;
+            dumpExecutor = null;
+        }
+        if (executor != null) {
+            executor.shutdown();
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+}
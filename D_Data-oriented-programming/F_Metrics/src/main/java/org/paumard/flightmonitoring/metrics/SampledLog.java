@@ -0,0 +1,44 @@
+package org.paumard.flightmonitoring.metrics;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prints one message out of flightmonitoring.log.sample-rate, nothing when the rate is 0,
+ * which is the default: these messages used to be printed on every fetch and every follow,
+ * on the path of the price ticks and of the display, and they scrolled the frames off the
+ * console. A rate of 1 prints them all again. They go to the console by default, like the
+ * println calls they replace. The message is only built for the calls that are printed.
+ */
+public class SampledLog {
+
+    private static final int SAMPLE_RATE = Integer.getInteger("flightmonitoring.log.sample-rate", 0);
+
+    private final AtomicLong calls = new AtomicLong();
+    private final int sampleRate;
+    private final PrintStream out;
+
+    public SampledLog() {
+        this(SAMPLE_RATE);
+    }
+
+    public SampledLog(int sampleRate) {
+        this(sampleRate, System.out);
+    }
+
+    public SampledLog(int sampleRate, PrintStream out) {
+        this.sampleRate = sampleRate;
+        this.out = out;
+    }
+
+    public boolean log(String message, Object argument) {
+        if (sampleRate <= 0) {
+            return false;
+        }
+        if (calls.getAndIncrement() % sampleRate != 0) {
+            return false;
+        }
+        out.println(message + argument);
+        return true;
+    }
+}
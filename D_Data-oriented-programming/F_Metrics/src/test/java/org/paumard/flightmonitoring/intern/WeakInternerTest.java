@@ -0,0 +1,43 @@
+package org.paumard.flightmonitoring.intern;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WeakInternerTest {
+
+    private record Key(String value) {
+    }
+
+    @Test
+    public void creates_one_instance_per_key_while_it_is_referenced() {
+        var created = new AtomicInteger();
+        var interner = new WeakInterner<Key>(value -> {
+            created.incrementAndGet();
+            return new Key(value);
+        });
+
+        var key = interner.intern("PaMi");
+
+        assertThat(interner.intern(new String("PaMi"))).isSameAs(key);
+        assertThat(created.get()).isEqualTo(1);
+        assertThat(interner.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void released_instances_are_removed_by_the_next_interns() throws InterruptedException {
+        var interner = new WeakInterner<>(Key::new);
+        for (int i = 0; i < 10_000; i++) {
+            interner.intern("released-" + i);
+        }
+        for (int attempt = 0; attempt < 10 && interner.size() > 100; attempt++) {
+            System.gc();
+            Thread.sleep(10);
+            interner.intern("purge-" + attempt);
+        }
+
+        assertThat(interner.size()).isLessThan(100);
+    }
+}
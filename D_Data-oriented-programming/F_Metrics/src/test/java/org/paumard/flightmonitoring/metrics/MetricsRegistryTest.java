@@ -0,0 +1,94 @@
+package org.paumard.flightmonitoring.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class MetricsRegistryTest {
+
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+
+    @Test
+    public void returns_the_same_counter_for_the_same_name() {
+        metrics.counter("test.counter").add(3L);
+        metrics.counter("test.counter").increment();
+
+        assertThat(metrics.counter("test.counter").count()).isEqualTo(4L);
+    }
+
+    @Test
+    public void refuses_a_name_registered_with_another_type() {
+        metrics.counter("test.typed");
+
+        assertThatThrownBy(() -> metrics.histogram("test.typed"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void histogram_percentiles_are_power_of_two_upper_bounds() {
+        var histogram = new Histogram();
+        for (int value = 1; value <= 100; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.count()).isEqualTo(100L);
+        assertThat(histogram.mean()).isEqualTo(50L);
+        assertThat(histogram.percentile(50)).isEqualTo(63L);
+        assertThat(histogram.percentile(99)).isEqualTo(100L);
+        assertThat(histogram.max()).isEqualTo(100L);
+    }
+
+    @Test
+    public void dumps_every_metric_in_name_order() {
+        var value = new AtomicLong(42L);
+        metrics.gauge("test.dump.gauge", value::get);
+        metrics.counter("test.dump.counter").increment();
+        metrics.histogram("test.dump.histogram").record(5L);
+        var out = new ByteArrayOutputStream();
+
+        metrics.dump(new PrintStream(out, true));
+
+        var lines = out.toString().lines().filter(line -> line.startsWith("test.dump.")).toList();
+        assertThat(lines).containsExactly(
+                "test.dump.counter 1",
+                "test.dump.gauge 42",
+                "test.dump.histogram count=1 mean=5 p50=5 p99=5 max=5");
+    }
+
+    @Test
+    public void exposes_metrics_as_mbean_attributes() throws Exception {
+        metrics.counter("test.jmx.counter").add(7L);
+        metrics.histogram("test.jmx.histogram").record(1_000L);
+        metrics.exposeOverJmx();
+        var server = ManagementFactory.getPlatformMBeanServer();
+        var name = new ObjectName("org.paumard.flightmonitoring:type=Metrics");
+
+        assertThat(server.getAttribute(name, "test.jmx.counter")).isEqualTo(7L);
+        assertThat(server.getAttribute(name, "test.jmx.histogram.count")).isEqualTo(1L);
+        assertThat(server.getAttribute(name, "test.jmx.histogram.max")).isEqualTo(1_000L);
+    }
+
+    @Test
+    public void sampled_log_prints_one_call_out_of_the_rate() {
+        var lines = new ByteArrayOutputStream();
+        var log = new SampledLog(3, new PrintStream(lines, true, StandardCharsets.UTF_8));
+        int printed = 0;
+        for (int call = 0; call < 9; call++) {
+            if (log.log("sampled ", call)) {
+                printed++;
+            }
+        }
+
+        assertThat(printed).isEqualTo(3);
+        assertThat(lines.toString(StandardCharsets.UTF_8).lines().toList()).containsExactly("sampled 0", "sampled 3", "sampled 6");
+        assertThat(new SampledLog(0).log("never ", 0)).isFalse();
+    }
+}